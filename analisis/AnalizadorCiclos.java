@@ -0,0 +1,435 @@
+package analisis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import analisis.InformeCiclo.Terminacion;
+import analisis.Programa.Asignacion;
+import analisis.Programa.Binaria;
+import analisis.Programa.Ciclo;
+import analisis.Programa.Constante;
+import analisis.Programa.Expresion;
+import analisis.Programa.Sentencia;
+import analisis.Programa.Variable;
+import data.Semantico;
+import data.Token;
+
+/** Análisis estático de terminación y costo de los while, sin ejecutar el programa.
+ *
+ * Recorre el programa llevando un intervalo por variable (las no inicializadas valen
+ * cualquier int). Para cada while escribe la condición 'L < R' como d = R - L > 0 (o L - R
+ * para '>'), con d lineal en las variables, y calcula cuánto cambia d en una vuelta del
+ * cuerpo a partir de las asignaciones de la forma v = v + c. Si d baja k por vuelta el
+ * ciclo termina en a lo más ceil(d0 / k) iteraciones, donde d0 es el intervalo de d al
+ * entrar; si d no baja, el ciclo no termina una vez que entra.
+ */
+public final class AnalizadorCiclos {
+
+    /** Ciclos cuyo costo estimado pasa de este número de operaciones se reportan como costosos. */
+    public static final long UMBRAL_COSTO = 100_000_000L;
+
+    private final Map<String, Semantico.Tipo> tipos = new HashMap<>();
+    private final List<InformeCiclo> informes = new ArrayList<>();
+    private final Map<Ciclo, Map<String, Set<String>>> clausuras = new IdentityHashMap<>();
+
+    private AnalizadorCiclos() { }
+
+    /** Analiza un programa que pasó el Semántico, con su tabla de símbolos. */
+    public static List<InformeCiclo> analizar(List<Token> tokens, List<Semantico.Simbolo> tablaSimbolos) {
+        return analizar(Programa.construir(tokens), tablaSimbolos);
+    }
+
+    public static List<InformeCiclo> analizar(Programa programa, List<Semantico.Simbolo> tablaSimbolos) {
+        AnalizadorCiclos a = new AnalizadorCiclos();
+        Estado inicial = new Estado();
+        for (Semantico.Simbolo s : tablaSimbolos) {
+            a.tipos.put(s.nombre, s.tipo);
+            inicial.valores.put(s.nombre, a.desconocido(s.nombre));
+            Set<String> dep = new TreeSet<>();
+            dep.add(s.nombre);      // sin inicializar: su valor depende de sí misma
+            inicial.dependencias.put(s.nombre, dep);
+        }
+        a.ejecutar(programa.sentencias, inicial);
+        a.informes.sort(Comparator.comparingInt(i -> i.indiceToken));
+        return a.informes;
+    }
+
+    // ===========================
+    // Estado abstracto
+    // ===========================
+
+    /** Intervalo de cada variable y las variables sin inicializar de las que depende su valor.
+     * Los conjuntos de dependencias no se modifican una vez guardados, así que se comparten entre copias. */
+    private static final class Estado {
+        final Map<String, Intervalo> valores = new HashMap<>();
+        final Map<String, Set<String>> dependencias = new HashMap<>();
+
+        Estado copia() {
+            Estado e = new Estado();
+            e.valores.putAll(valores);
+            e.dependencias.putAll(dependencias);
+            return e;
+        }
+
+        Intervalo valor(String v) { return valores.getOrDefault(v, Intervalo.INT); }
+
+        Set<String> dependencias(String v) {
+            Set<String> d = dependencias.get(v);
+            return d != null ? d : new TreeSet<>();
+        }
+    }
+
+    /** Ejecuta abstractamente una lista de sentencias y devuelve su costo (o SIN_COTA). */
+    private long ejecutar(List<Sentencia> sentencias, Estado e) {
+        long costo = 0;
+        for (Sentencia s : sentencias) {
+            long c;
+            if (s instanceof Asignacion) {
+                Asignacion a = (Asignacion) s;
+                e.valores.put(a.variable, acotar(a.variable, evaluar(a.valor, e)));
+                e.dependencias.put(a.variable, dependenciasDe(a.valor, e));
+                c = 1;
+            } else {
+                c = ciclo((Ciclo) s, e);
+            }
+            costo = (costo == InformeCiclo.SIN_COTA || c == InformeCiclo.SIN_COTA)
+                    ? InformeCiclo.SIN_COTA : Intervalo.suma(costo, c);
+        }
+        return costo;
+    }
+
+    /** Lo único que se sabe de una variable: cualquier valor de su tipo. */
+    private Intervalo desconocido(String v) {
+        return (tipos.get(v) == Semantico.Tipo.BOOLEAN) ? Intervalo.BOOLEANO : Intervalo.INT;
+    }
+
+    /** Un int siempre está en el rango de int: si el intervalo se sale, el valor real dio la vuelta
+     * y puede ser cualquiera. */
+    private Intervalo acotar(String v, Intervalo i) {
+        Intervalo tipo = desconocido(v);
+        return (i.min < tipo.min || i.max > tipo.max) ? tipo : i;
+    }
+
+    private Intervalo evaluar(Expresion x, Estado e) {
+        if (x instanceof Constante) return Intervalo.de(((Constante) x).valor);
+        if (x instanceof Variable) return e.valor(((Variable) x).nombre);
+        Binaria b = (Binaria) x;
+        if (b.esComparacion()) return Intervalo.BOOLEANO;
+        Intervalo i = evaluar(b.izquierda, e), d = evaluar(b.derecha, e);
+        switch (b.operador) {
+            case '+': return i.sumar(d);
+            case '-': return i.restar(d);
+            default:  return i.multiplicar(d);
+        }
+    }
+
+    private Set<String> dependenciasDe(Expresion x, Estado e) {
+        Set<String> r = new TreeSet<>();
+        for (String v : variablesDe(x, new TreeSet<>())) r.addAll(e.dependencias(v));
+        return r;
+    }
+
+    private static Set<String> variablesDe(Expresion x, Set<String> r) {
+        if (x instanceof Variable) r.add(((Variable) x).nombre);
+        else if (x instanceof Binaria) {
+            variablesDe(((Binaria) x).izquierda, r);
+            variablesDe(((Binaria) x).derecha, r);
+        }
+        return r;
+    }
+
+    // ===========================
+    // Ciclos
+    // ===========================
+
+    /** Analiza un while, deja en 'e' el estado a la salida y devuelve su costo (o SIN_COTA). */
+    private long ciclo(Ciclo c, Estado e) {
+        Map<String, Long> pasos = pasosPorVuelta(c.cuerpo);
+        Set<String> modificadas = new TreeSet<>();
+        asignadas(c.cuerpo, modificadas);
+
+        Terminacion terminacion;
+        long min = 0, max = InformeCiclo.SIN_COTA;
+        String motivo = null;
+        Set<String> sinInicializar = new TreeSet<>();
+
+        Lineal d = (c.condicion instanceof Binaria) ? distancia((Binaria) c.condicion) : null;
+        if (c.condicion instanceof Constante) {
+            if (((Constante) c.condicion).valor == 0) {
+                terminacion = Terminacion.TERMINA;
+                max = 0;
+            } else {
+                terminacion = Terminacion.NO_TERMINA;
+                motivo = "la condición es la constante true";
+            }
+        } else if (d == null) {
+            terminacion = Terminacion.NO_ANALIZABLE;
+            motivo = "la condición no es lineal en las variables";
+        } else {
+            for (String v : d.coeficientes.keySet()) sinInicializar.addAll(e.dependencias(v));
+            Intervalo d0 = d.evaluar(e);
+            long paso = 0;
+            String sinPaso = null;
+            for (Map.Entry<String, Long> t : d.coeficientes.entrySet()) {
+                if (!pasos.containsKey(t.getKey())) continue;       // el cuerpo no la modifica
+                Long p = pasos.get(t.getKey());
+                if (p == null) { sinPaso = t.getKey(); break; }
+                paso = Intervalo.suma(paso, Intervalo.producto(t.getValue(), p));
+            }
+
+            if (d0.max < 1) {
+                terminacion = Terminacion.TERMINA;      // la condición ya es falsa al llegar
+                max = 0;
+            } else if (sinPaso != null) {
+                terminacion = Terminacion.NO_ANALIZABLE;
+                motivo = "el cuerpo modifica '" + sinPaso + "' sin un incremento constante";
+            } else if (paso < 0) {
+                terminacion = Terminacion.TERMINA;
+                long k = Intervalo.negar(paso);
+                min = (d0.min >= 1) ? divCeil(d0.min, k) : 0;
+                max = divCeil(d0.max, k);
+            } else {
+                String porque = (paso == 0)
+                        ? "el cuerpo no modifica las variables de la condición"
+                        : "el cuerpo aleja la condición de volverse falsa";
+                if (d0.min >= 1) {
+                    terminacion = Terminacion.NO_TERMINA;
+                    motivo = "la condición es verdadera al entrar y " + porque;
+                } else {
+                    terminacion = Terminacion.PUEDE_NO_TERMINAR;
+                    motivo = "si la condición se cumple al entrar, " + porque;
+                }
+            }
+        }
+
+        // Estado al inicio de cualquier vuelta, para los ciclos anidados y el costo del cuerpo
+        Estado cabeza = e.copia();
+        cabeza.dependencias.clear();
+        cabeza.dependencias.putAll(dependenciasCabeza(c, e.dependencias));
+        for (String v : modificadas) {
+            Long p = pasos.get(v);
+            Intervalo i = e.valor(v);
+            if (p != null && max != InformeCiclo.SIN_COTA) {
+                cabeza.valores.put(v, acotar(v, i.unir(i.sumar(Intervalo.de(p).multiplicar(new Intervalo(0, Math.max(0, max - 1)))))));
+            } else {
+                cabeza.valores.put(v, desconocido(v));
+            }
+        }
+        long costoCuerpo = ejecutar(c.cuerpo, cabeza.copia());
+
+        long costo = InformeCiclo.SIN_COTA;
+        if (terminacion == Terminacion.TERMINA && costoCuerpo != InformeCiclo.SIN_COTA) {
+            // cada vuelta evalúa la condición y ejecuta el cuerpo; al final se evalúa una vez más
+            costo = Intervalo.suma(Intervalo.producto(max, Intervalo.suma(costoCuerpo, 1)), 1);
+        }
+
+        // Estado a la salida
+        for (String v : modificadas) {
+            Long p = pasos.get(v);
+            if (p != null && max != InformeCiclo.SIN_COTA) {
+                e.valores.put(v, acotar(v, e.valor(v).sumar(Intervalo.de(p).multiplicar(new Intervalo(min, max)))));
+            } else {
+                e.valores.put(v, desconocido(v));
+            }
+            e.dependencias.put(v, cabeza.dependencias(v));
+        }
+
+        informes.add(new InformeCiclo(c.indiceToken, c.condicion.toString(), terminacion, min, max, costo,
+                new ArrayList<>(sinInicializar), motivo));
+        return costo;
+    }
+
+    private static long divCeil(long a, long b) {
+        return a / b + ((a % b != 0 && a > 0) ? 1 : 0);
+    }
+
+    /** Variables asignadas en una lista de sentencias, incluyendo los ciclos anidados. */
+    private static void asignadas(List<Sentencia> sentencias, Set<String> r) {
+        for (Sentencia s : sentencias) {
+            if (s instanceof Asignacion) r.add(((Asignacion) s).variable);
+            else asignadas(((Ciclo) s).cuerpo, r);
+        }
+    }
+
+    /** Dependencias al inicio de cualquier vuelta del ciclo (y por lo tanto a su salida). */
+    private Map<String, Set<String>> dependenciasCabeza(Ciclo c, Map<String, Set<String>> entrada) {
+        return componer(clausura(c), entrada);
+    }
+
+    /** Para cada variable que el ciclo modifica, de qué variables (valores al llegar al ciclo) puede
+     * depender al inicio de una vuelta cualquiera; las que no aparecen solo dependen de sí mismas.
+     * Se calcula una vez por ciclo, hasta un punto fijo. */
+    private Map<String, Set<String>> clausura(Ciclo c) {
+        Map<String, Set<String>> r = clausuras.get(c);
+        if (r != null) return r;
+        r = new HashMap<>();
+        while (true) {
+            Map<String, Set<String>> vuelta = new HashMap<>(r);
+            dependenciasCuerpo(c.cuerpo, vuelta);
+            boolean cambio = false;
+            for (Map.Entry<String, Set<String>> d : vuelta.entrySet()) {
+                Set<String> actual = r.get(d.getKey());
+                if (actual == null) {
+                    actual = new TreeSet<>();
+                    actual.add(d.getKey());     // cero vueltas: el valor con que se llegó
+                    r.put(d.getKey(), actual);
+                    cambio = true;
+                }
+                cambio |= actual.addAll(d.getValue());
+            }
+            if (!cambio) break;
+        }
+        clausuras.put(c, r);
+        return r;
+    }
+
+    /** Aplica un cuerpo sobre una relación variable -> dependencias (ausente = solo ella misma). */
+    private void dependenciasCuerpo(List<Sentencia> sentencias, Map<String, Set<String>> deps) {
+        for (Sentencia s : sentencias) {
+            if (s instanceof Asignacion) {
+                Asignacion a = (Asignacion) s;
+                Set<String> d = new TreeSet<>();
+                for (String v : variablesDe(a.valor, new TreeSet<>())) d.addAll(dependenciasEn(deps, v));
+                deps.put(a.variable, d);
+            } else {
+                Map<String, Set<String>> compuesta = componer(clausura((Ciclo) s), deps);
+                deps.putAll(compuesta);
+            }
+        }
+    }
+
+    /** Primero 'antes' y luego 'relacion': solo cambian las variables que 'relacion' menciona. */
+    private static Map<String, Set<String>> componer(Map<String, Set<String>> relacion, Map<String, Set<String>> antes) {
+        Map<String, Set<String>> r = new HashMap<>(antes);
+        for (Map.Entry<String, Set<String>> t : relacion.entrySet()) {
+            Set<String> d = new TreeSet<>();
+            for (String u : t.getValue()) d.addAll(dependenciasEn(antes, u));
+            r.put(t.getKey(), d);
+        }
+        return r;
+    }
+
+    private static Set<String> dependenciasEn(Map<String, Set<String>> deps, String v) {
+        Set<String> d = deps.get(v);
+        return d != null ? d : Collections.singleton(v);
+    }
+
+    /** Cuánto cambia cada variable asignada en una vuelta del cuerpo: el incremento c cuando
+     * al final de la vuelta v = v + c, o null si el cambio no es un incremento constante. */
+    private static Map<String, Long> pasosPorVuelta(List<Sentencia> cuerpo) {
+        Map<String, Lineal> simbolico = new HashMap<>();    // valor actual en términos de los valores al empezar la vuelta
+        for (Sentencia s : cuerpo) {
+            if (s instanceof Asignacion) {
+                Asignacion a = (Asignacion) s;
+                simbolico.put(a.variable, Lineal.de(a.valor, simbolico));
+            } else {
+                Set<String> internas = new TreeSet<>();
+                asignadas(((Ciclo) s).cuerpo, internas);
+                for (String v : internas) simbolico.put(v, null);  // depende de cuántas vueltas dé el ciclo anidado
+            }
+        }
+        Map<String, Long> pasos = new HashMap<>();
+        for (Map.Entry<String, Lineal> t : simbolico.entrySet()) {
+            Lineal l = t.getValue();
+            boolean incremento = l != null && l.coeficientes.size() == 1
+                    && Long.valueOf(1).equals(l.coeficientes.get(t.getKey()));
+            pasos.put(t.getKey(), incremento ? l.constante : null);
+        }
+        return pasos;
+    }
+
+    /** d tal que la condición equivale a d > 0, o null si no es lineal. */
+    private static Lineal distancia(Binaria condicion) {
+        Lineal izq = Lineal.de(condicion.izquierda, null), der = Lineal.de(condicion.derecha, null);
+        if (izq == null || der == null) return null;
+        return condicion.operador == '<' ? der.restar(izq) : izq.restar(der);
+    }
+
+    // ===========================
+    // Formas lineales
+    // ===========================
+
+    /** c0 + c1*v1 + ... + cn*vn */
+    private static final class Lineal {
+        final Map<String, Long> coeficientes = new LinkedHashMap<>();
+        long constante;
+
+        /** Forma lineal de una expresión aritmética; 'sustituciones' (puede ser null) da el valor
+         * simbólico de algunas variables. Devuelve null si la expresión no es lineal. */
+        static Lineal de(Expresion x, Map<String, Lineal> sustituciones) {
+            if (x instanceof Constante) {
+                Lineal l = new Lineal();
+                l.constante = ((Constante) x).valor;
+                return l;
+            }
+            if (x instanceof Variable) {
+                String v = ((Variable) x).nombre;
+                if (sustituciones != null && sustituciones.containsKey(v)) {
+                    Lineal s = sustituciones.get(v);
+                    return s != null ? s.copia() : null;
+                }
+                Lineal l = new Lineal();
+                l.coeficientes.put(v, 1L);
+                return l;
+            }
+            Binaria b = (Binaria) x;
+            if (b.esComparacion()) return null;
+            Lineal i = de(b.izquierda, sustituciones), d = de(b.derecha, sustituciones);
+            if (i == null || d == null) return null;
+            switch (b.operador) {
+                case '+': return i.sumar(d, 1);
+                case '-': return i.sumar(d, -1);
+                default:
+                    if (i.coeficientes.isEmpty()) return d.escalar(i.constante);
+                    if (d.coeficientes.isEmpty()) return i.escalar(d.constante);
+                    return null;    // producto de dos variables
+            }
+        }
+
+        Lineal copia() {
+            Lineal l = new Lineal();
+            l.coeficientes.putAll(coeficientes);
+            l.constante = constante;
+            return l;
+        }
+
+        Lineal restar(Lineal o) { return sumar(o, -1); }
+
+        Lineal sumar(Lineal o, long signo) {
+            Lineal r = copia();
+            r.constante = Intervalo.suma(r.constante, Intervalo.producto(signo, o.constante));
+            for (Map.Entry<String, Long> t : o.coeficientes.entrySet()) {
+                long c = Intervalo.suma(r.coeficientes.getOrDefault(t.getKey(), 0L), Intervalo.producto(signo, t.getValue()));
+                if (c == 0) r.coeficientes.remove(t.getKey());
+                else r.coeficientes.put(t.getKey(), c);
+            }
+            return r;
+        }
+
+        Lineal escalar(long k) {
+            Lineal r = new Lineal();
+            if (k == 0) return r;
+            r.constante = Intervalo.producto(constante, k);
+            for (Map.Entry<String, Long> t : coeficientes.entrySet()) {
+                r.coeficientes.put(t.getKey(), Intervalo.producto(t.getValue(), k));
+            }
+            return r;
+        }
+
+        Intervalo evaluar(Estado e) {
+            Intervalo r = Intervalo.de(constante);
+            for (Map.Entry<String, Long> t : coeficientes.entrySet()) {
+                r = r.sumar(e.valor(t.getKey()).multiplicar(Intervalo.de(t.getValue())));
+            }
+            return r;
+        }
+    }
+}
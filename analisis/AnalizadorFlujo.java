@@ -0,0 +1,364 @@
+package analisis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import analisis.Programa.Asignacion;
+import analisis.Programa.Binaria;
+import analisis.Programa.Ciclo;
+import analisis.Programa.Expresion;
+import analisis.Programa.Sentencia;
+import analisis.Programa.Variable;
+import data.Diagnostico;
+import data.Metricas;
+import data.Semantico;
+import data.Token;
+
+/** Análisis de flujo de datos sobre el grafo de bloques básicos del programa:
+ * - asignación definitiva (hacia adelante, intersección): variables que pueden leerse sin haberse asignado;
+ * - variables vivas (hacia atrás, unión): asignaciones cuyo valor nunca se lee.
+ *
+ * Los conjuntos son vectores de bits (long[]) indexados por el lugar de la variable en la tabla
+ * de símbolos. Cada while crea tres bloques (condición, cuerpo y salida) y solo los puntos de
+ * unión (las condiciones) guardan un vector: los demás bloques tienen un único predecesor o
+ * sucesor y derivan el suyo en un paso. Así la memoria es O(ciclos * variables / 64) y cada
+ * vuelta del worklist cuesta O(variables / 64) más las sentencias del bloque.
+ */
+public final class AnalizadorFlujo {
+
+    private final Map<String, Integer> lugares = new HashMap<>();
+    private final String[] nombres;
+    private final int palabras;                     // longs por vector de bits
+    private final List<Bloque> bloques = new ArrayList<>();
+
+    /** Una asignación (def >= 0) o la condición de un while (def = -1) con las variables que lee. */
+    private static final class Nodo {
+        final int def;
+        final int indiceDef;        // token de la asignación
+        final int[] usos;           // lugares leídos, en orden
+        final int[] indicesUsos;    // token de cada lectura
+
+        Nodo(int def, int indiceDef, int[] usos, int[] indicesUsos) {
+            this.def = def;
+            this.indiceDef = indiceDef;
+            this.usos = usos;
+            this.indicesUsos = indicesUsos;
+        }
+    }
+
+    private static final class Bloque {
+        final List<Nodo> nodos = new ArrayList<>();
+        int[] sucesores = new int[2];
+        int numSucesores;
+        int[] predecesores = new int[2];
+        int numPredecesores;
+        int[] defs;         // lugares asignados en el bloque
+        int[] usosExpuestos;  // lugares leídos antes de asignarse dentro del bloque
+        long[] entrada;     // asignadas al entrar (adelante) / vivas al entrar (atrás); null si se deriva
+    }
+
+    private AnalizadorFlujo(List<Semantico.Simbolo> tablaSimbolos) {
+        nombres = new String[tablaSimbolos.size()];
+        for (int i = 0; i < nombres.length; i++) {
+            nombres[i] = tablaSimbolos.get(i).nombre;
+            lugares.put(nombres[i], i);
+        }
+        palabras = (nombres.length + 63) >>> 6;
+    }
+
+    /** Analiza un programa que pasó el Semántico y devuelve los avisos ordenados por posición. */
+    public static List<Diagnostico> analizar(List<Token> tokens, List<Semantico.Simbolo> tablaSimbolos) {
+        return analizar(Programa.construir(tokens), tablaSimbolos);
+    }
+
+    public static List<Diagnostico> analizar(Programa programa, List<Semantico.Simbolo> tablaSimbolos) {
+        AnalizadorFlujo a = new AnalizadorFlujo(tablaSimbolos);
+        a.construir(programa.sentencias, a.nuevoBloque());
+        a.resumirBloques();
+
+        List<Diagnostico> avisos = new ArrayList<>();
+        a.asignacionDefinitiva(avisos);
+        a.asignacionesMuertas(avisos);
+        avisos.sort(Comparator.comparingInt(d -> d.indiceToken));
+        return avisos;
+    }
+
+    // ===========================
+    // Grafo de bloques
+    // ===========================
+
+    private int nuevoBloque() {
+        bloques.add(new Bloque());
+        return bloques.size() - 1;
+    }
+
+    private void enlazar(int de, int a) {
+        Bloque o = bloques.get(de), d = bloques.get(a);
+        if (o.numSucesores == o.sucesores.length) o.sucesores = Arrays.copyOf(o.sucesores, o.numSucesores * 2);
+        o.sucesores[o.numSucesores++] = a;
+        if (d.numPredecesores == d.predecesores.length) d.predecesores = Arrays.copyOf(d.predecesores, d.numPredecesores * 2);
+        d.predecesores[d.numPredecesores++] = de;
+    }
+
+    /** Agrega las sentencias a partir del bloque 'actual' y devuelve el bloque abierto al final. */
+    private int construir(List<Sentencia> sentencias, int actual) {
+        for (Sentencia s : sentencias) {
+            if (s instanceof Asignacion) {
+                Asignacion a = (Asignacion) s;
+                Integer def = lugares.get(a.variable);
+                bloques.get(actual).nodos.add(nodo(def != null ? def : -1, a.indiceToken, a.valor));
+            } else {
+                Ciclo c = (Ciclo) s;
+                int condicion = nuevoBloque();
+                enlazar(actual, condicion);
+                bloques.get(condicion).nodos.add(nodo(-1, c.indiceToken, c.condicion));
+                int cuerpo = nuevoBloque();
+                enlazar(condicion, cuerpo);
+                enlazar(construir(c.cuerpo, cuerpo), condicion);   // vuelta al inicio del ciclo
+                actual = nuevoBloque();
+                enlazar(condicion, actual);
+            }
+        }
+        return actual;
+    }
+
+    private Nodo nodo(int def, int indiceDef, Expresion valor) {
+        List<Variable> leidas = new ArrayList<>();
+        variables(valor, leidas);
+        int n = 0;
+        int[] usos = new int[leidas.size()], indices = new int[leidas.size()];
+        for (Variable v : leidas) {
+            Integer lugar = lugares.get(v.nombre);
+            if (lugar == null) continue;
+            usos[n] = lugar;
+            indices[n++] = v.indiceToken;
+        }
+        return new Nodo(def, indiceDef, Arrays.copyOf(usos, n), Arrays.copyOf(indices, n));
+    }
+
+    private static void variables(Expresion x, List<Variable> r) {
+        if (x instanceof Variable) r.add((Variable) x);
+        else if (x instanceof Binaria) {
+            variables(((Binaria) x).izquierda, r);
+            variables(((Binaria) x).derecha, r);
+        }
+    }
+
+    /** Calcula para cada bloque los lugares que asigna y los que lee antes de asignar. */
+    private void resumirBloques() {
+        long[] asignadas = new long[palabras];
+        for (Bloque b : bloques) {
+            int nd = 0, nu = 0;
+            int[] defs = new int[b.nodos.size()];
+            int[] usos = new int[8];
+            for (Nodo n : b.nodos) {
+                for (int u : n.usos) {
+                    if (esta(asignadas, u)) continue;
+                    if (nu == usos.length) usos = Arrays.copyOf(usos, nu * 2);
+                    usos[nu++] = u;
+                }
+                if (n.def >= 0 && !esta(asignadas, n.def)) {
+                    poner(asignadas, n.def);
+                    defs[nd++] = n.def;
+                }
+            }
+            for (int i = 0; i < nd; i++) quitar(asignadas, defs[i]);     // deja 'asignadas' en cero para el siguiente
+            b.defs = Arrays.copyOf(defs, nd);
+            b.usosExpuestos = Arrays.copyOf(usos, nu);
+        }
+    }
+
+    // ===========================
+    // Asignación definitiva (hacia adelante)
+    // ===========================
+
+    /** Solo los bloques con 0 o 2+ predecesores (inicio y condiciones de while) guardan su vector;
+     * los demás lo derivan de su único predecesor. */
+    private static boolean guardaAdelante(Bloque b) { return b.numPredecesores != 1; }
+
+    /** Variables asignadas con seguridad al entrar a 'b', escritas en 'destino'. */
+    private void asignadasAlEntrar(Bloque b, long[] destino) {
+        if (guardaAdelante(b)) {
+            System.arraycopy(b.entrada, 0, destino, 0, palabras);
+            return;
+        }
+        Bloque p = bloques.get(b.predecesores[0]);
+        asignadasAlEntrar(p, destino);
+        for (int d : p.defs) poner(destino, d);
+    }
+
+    private void asignacionDefinitiva(List<Diagnostico> avisos) {
+        int n = bloques.size();
+        Worklist w = new Worklist(n);
+        for (int i = 0; i < n; i++) {
+            Bloque b = bloques.get(i);
+            b.entrada = null;
+            if (!guardaAdelante(b)) continue;
+            b.entrada = new long[palabras];
+            if (b.numPredecesores > 0) {
+                Arrays.fill(b.entrada, -1L);    // tope: todo asignado, hasta que los predecesores digan otra cosa
+                w.agregar(i);
+            }
+        }
+
+        long[] nueva = new long[palabras], salida = new long[palabras];
+        while (!w.vacia()) {
+            Bloque b = bloques.get(w.sacar());
+            Arrays.fill(nueva, -1L);
+            for (int k = 0; k < b.numPredecesores; k++) {
+                Bloque p = bloques.get(b.predecesores[k]);
+                asignadasAlEntrar(p, salida);
+                for (int d : p.defs) poner(salida, d);
+                for (int x = 0; x < palabras; x++) nueva[x] &= salida[x];
+            }
+            if (!Arrays.equals(nueva, b.entrada)) {
+                System.arraycopy(nueva, 0, b.entrada, 0, palabras);
+                encolarSucesores(b, w);
+            }
+        }
+
+        // Variables que ninguna sentencia asigna, para distinguir el mensaje
+        long[] asignadasAlguna = new long[palabras];
+        for (Bloque b : bloques) for (int d : b.defs) poner(asignadasAlguna, d);
+
+        boolean[] reportada = new boolean[nombres.length];
+        long[] actual = new long[palabras];
+        for (Bloque b : bloques) {
+            asignadasAlEntrar(b, actual);
+            for (Nodo nodo : b.nodos) {
+                for (int k = 0; k < nodo.usos.length; k++) {
+                    int u = nodo.usos[k];
+                    if (esta(actual, u) || reportada[u]) continue;
+                    reportada[u] = true;
+                    String msg = esta(asignadasAlguna, u)
+                            ? "La variable '" + nombres[u] + "' puede leerse antes de asignarse."
+                            : "La variable '" + nombres[u] + "' se lee pero nunca se asigna.";
+                    avisos.add(new Diagnostico(Metricas.Fase.SEMANTICO, msg, nodo.indicesUsos[k]));
+                }
+                if (nodo.def >= 0) poner(actual, nodo.def);
+            }
+        }
+    }
+
+    /** Encola los bloques con vector guardado que dependen de la salida de 'b'. */
+    private void encolarSucesores(Bloque b, Worklist w) {
+        for (int k = 0; k < b.numSucesores; k++) {
+            int s = b.sucesores[k];
+            if (guardaAdelante(bloques.get(s))) w.agregar(s);
+            else encolarSucesores(bloques.get(s), w);
+        }
+    }
+
+    // ===========================
+    // Variables vivas (hacia atrás)
+    // ===========================
+
+    /** Solo los bloques con 2+ sucesores (condiciones de while) guardan su vector. */
+    private static boolean guardaAtras(Bloque b) { return b.numSucesores > 1; }
+
+    /** Variables vivas al entrar a 'b', escritas en 'destino'. */
+    private void vivasAlEntrar(Bloque b, long[] destino) {
+        if (guardaAtras(b)) {
+            System.arraycopy(b.entrada, 0, destino, 0, palabras);
+            return;
+        }
+        if (b.numSucesores == 1) vivasAlEntrar(bloques.get(b.sucesores[0]), destino);
+        else Arrays.fill(destino, 0L);      // fin del programa: nada se lee después
+        for (int d : b.defs) quitar(destino, d);
+        for (int u : b.usosExpuestos) poner(destino, u);
+    }
+
+    private void vivasAlSalir(Bloque b, long[] destino, long[] auxiliar) {
+        Arrays.fill(destino, 0L);
+        for (int k = 0; k < b.numSucesores; k++) {
+            vivasAlEntrar(bloques.get(b.sucesores[k]), auxiliar);
+            for (int x = 0; x < palabras; x++) destino[x] |= auxiliar[x];
+        }
+    }
+
+    private void asignacionesMuertas(List<Diagnostico> avisos) {
+        int n = bloques.size();
+        Worklist w = new Worklist(n);
+        for (int i = n - 1; i >= 0; i--) {
+            Bloque b = bloques.get(i);
+            b.entrada = guardaAtras(b) ? new long[palabras] : null;
+            if (b.entrada != null) w.agregar(i);
+        }
+
+        long[] nueva = new long[palabras], auxiliar = new long[palabras];
+        while (!w.vacia()) {
+            Bloque b = bloques.get(w.sacar());
+            vivasAlSalir(b, nueva, auxiliar);
+            for (int d : b.defs) quitar(nueva, d);
+            for (int u : b.usosExpuestos) poner(nueva, u);
+            if (!Arrays.equals(nueva, b.entrada)) {
+                System.arraycopy(nueva, 0, b.entrada, 0, palabras);
+                encolarPredecesores(b, w);
+            }
+        }
+
+        long[] vivas = new long[palabras];
+        for (Bloque b : bloques) {
+            vivasAlSalir(b, vivas, auxiliar);
+            for (int i = b.nodos.size() - 1; i >= 0; i--) {
+                Nodo nodo = b.nodos.get(i);
+                if (nodo.def >= 0) {
+                    if (!esta(vivas, nodo.def)) {
+                        avisos.add(new Diagnostico(Metricas.Fase.SEMANTICO,
+                                "El valor asignado a '" + nombres[nodo.def] + "' nunca se lee.", nodo.indiceDef));
+                    }
+                    quitar(vivas, nodo.def);
+                }
+                for (int u : nodo.usos) poner(vivas, u);
+            }
+        }
+    }
+
+    private void encolarPredecesores(Bloque b, Worklist w) {
+        for (int k = 0; k < b.numPredecesores; k++) {
+            int p = b.predecesores[k];
+            if (guardaAtras(bloques.get(p))) w.agregar(p);
+            else encolarPredecesores(bloques.get(p), w);
+        }
+    }
+
+    // ===========================
+    // Utilidades
+    // ===========================
+
+    private static boolean esta(long[] v, int i) { return (v[i >>> 6] & (1L << i)) != 0; }
+    private static void poner(long[] v, int i)   { v[i >>> 6] |= 1L << i; }
+    private static void quitar(long[] v, int i)  { v[i >>> 6] &= ~(1L << i); }
+
+    /** Cola de bloques pendientes, sin repetidos. */
+    private static final class Worklist {
+        private final int[] cola;
+        private final boolean[] pendiente;
+        private int inicio, tam;
+
+        Worklist(int n) {
+            cola = new int[Math.max(1, n)];
+            pendiente = new boolean[n];
+        }
+
+        void agregar(int b) {
+            if (pendiente[b]) return;
+            pendiente[b] = true;
+            cola[(inicio + tam++) % cola.length] = b;
+        }
+
+        int sacar() {
+            int b = cola[inicio];
+            inicio = (inicio + 1) % cola.length;
+            tam--;
+            pendiente[b] = false;
+            return b;
+        }
+
+        boolean vacia() { return tam == 0; }
+    }
+}
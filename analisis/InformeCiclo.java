@@ -0,0 +1,76 @@
+package analisis;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Lo que el análisis de ciclos concluye sobre un while. */
+public final class InformeCiclo {
+
+    public enum Terminacion {
+        /** Termina siempre; iteracionesMax es una cota. */
+        TERMINA,
+        /** Si se entra al ciclo, nunca termina. */
+        NO_TERMINA,
+        /** Termina o no según los valores con que se llega al ciclo. */
+        PUEDE_NO_TERMINAR,
+        /** La condición o el cuerpo están fuera de lo que el análisis sabe razonar. */
+        NO_ANALIZABLE
+    }
+
+    public static final long SIN_COTA = -1;
+
+    public final int indiceToken;           // token 'while'
+    public final String condicion;
+    public final Terminacion terminacion;
+    public final long iteracionesMin;
+    public final long iteracionesMax;       // SIN_COTA si no se pudo acotar
+    public final long costo;                // operaciones estimadas (asignaciones + evaluaciones de la condición), o SIN_COTA
+    public final List<String> sinInicializar;   // variables sin inicializar de las que depende la condición
+    public final String motivo;             // explicación para NO_TERMINA, PUEDE_NO_TERMINAR y NO_ANALIZABLE
+
+    InformeCiclo(int indiceToken, String condicion, Terminacion terminacion, long iteracionesMin,
+                 long iteracionesMax, long costo, List<String> sinInicializar, String motivo) {
+        this.indiceToken = indiceToken;
+        this.condicion = condicion;
+        this.terminacion = terminacion;
+        this.iteracionesMin = iteracionesMin;
+        this.iteracionesMax = iteracionesMax;
+        this.costo = costo;
+        this.sinInicializar = Collections.unmodifiableList(sinInicializar);
+        this.motivo = motivo;
+    }
+
+    /** Termina, pero su costo estimado supera AnalizadorCiclos.UMBRAL_COSTO (o no se pudo acotar). */
+    public boolean esCostoso() {
+        return terminacion == Terminacion.TERMINA && (costo == SIN_COTA || costo > AnalizadorCiclos.UMBRAL_COSTO);
+    }
+
+    /** Ciclos que conviene reportar antes de ejecutar: infinitos, posiblemente infinitos o costosos. */
+    public boolean esProblematico() {
+        return terminacion == Terminacion.NO_TERMINA || terminacion == Terminacion.PUEDE_NO_TERMINAR || esCostoso();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("while (").append(condicion).append("): ");
+        switch (terminacion) {
+            case TERMINA:
+                sb.append("termina tras ");
+                if (iteracionesMin != iteracionesMax) sb.append(iteracionesMin).append(" a ");
+                sb.append(iteracionesMax);
+                sb.append(iteracionesMax == 1 ? " iteración" : " iteraciones");
+                if (esCostoso()) {
+                    sb.append(" (costoso: ");
+                    sb.append(costo == SIN_COTA ? "costo sin cota" : "hasta " + costo + " operaciones").append(')');
+                }
+                break;
+            case NO_TERMINA:        sb.append("no termina: ").append(motivo); break;
+            case PUEDE_NO_TERMINAR: sb.append("puede no terminar: ").append(motivo); break;
+            default:                sb.append("no analizable: ").append(motivo); break;
+        }
+        if (!sinInicializar.isEmpty()) {
+            sb.append("; depende de ").append(String.join(", ", sinInicializar)).append(" sin inicializar");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package analisis;
+
+/** Intervalo cerrado [min, max] de enteros, con aritmética saturada en los extremos de long.
+ * Los valores se razonan como enteros matemáticos: no se modela el desbordamiento de int.
+ */
+public final class Intervalo {
+
+    /** Cualquier valor de un int (lo que puede valer una variable sin inicializar). */
+    public static final Intervalo INT = new Intervalo(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    public static final Intervalo BOOLEANO = new Intervalo(0, 1);
+
+    public final long min;
+    public final long max;
+
+    public Intervalo(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public static Intervalo de(long valor) { return new Intervalo(valor, valor); }
+
+    public boolean esConstante() { return min == max; }
+
+    public Intervalo sumar(Intervalo o)   { return new Intervalo(suma(min, o.min), suma(max, o.max)); }
+    public Intervalo restar(Intervalo o)  { return new Intervalo(suma(min, negar(o.max)), suma(max, negar(o.min))); }
+
+    public Intervalo multiplicar(Intervalo o) {
+        long a = producto(min, o.min), b = producto(min, o.max);
+        long c = producto(max, o.min), d = producto(max, o.max);
+        return new Intervalo(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+    }
+
+    /** El menor intervalo que contiene a ambos. */
+    public Intervalo unir(Intervalo o) { return new Intervalo(Math.min(min, o.min), Math.max(max, o.max)); }
+
+    // Aritmética saturada
+    static long suma(long a, long b) {
+        long r = a + b;
+        if (((a ^ r) & (b ^ r)) < 0) return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        return r;
+    }
+
+    static long producto(long a, long b) {
+        long alto = Math.multiplyHigh(a, b), bajo = a * b;
+        if ((alto == 0 && bajo >= 0) || (alto == -1 && bajo < 0)) return bajo;
+        return ((a < 0) != (b < 0)) ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    static long negar(long a) { return a == Long.MIN_VALUE ? Long.MAX_VALUE : -a; }
+
+    @Override
+    public String toString() {
+        return esConstante() ? Long.toString(min) : "[" + min + ", " + max + "]";
+    }
+}
@@ -0,0 +1,236 @@
+package analisis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import data.Parser;
+import data.Token;
+
+/** Árbol de un programa MicroJava que ya pasó el Parser: las sentencias con sus expresiones.
+ * Lo usan los análisis que necesitan recorrer el programa por sentencias (ciclos, flujo de datos).
+ * Las expresiones se agrupan con la precedencia usual: '*' antes que '+' y '-', de izquierda a derecha.
+ */
+public final class Programa {
+
+    public final String nombreClase;
+    public final List<Sentencia> sentencias;
+
+    private Programa(String nombreClase, List<Sentencia> sentencias) {
+        this.nombreClase = nombreClase;
+        this.sentencias = sentencias;
+    }
+
+    // ===========================
+    // Nodos
+    // ===========================
+
+    /** Sentencia del programa; 'indiceToken' es su primer token (el identificador o el while). */
+    public abstract static class Sentencia {
+        public final int indiceToken;
+        Sentencia(int indiceToken) { this.indiceToken = indiceToken; }
+    }
+
+    /** Identificador = Expresion ;  o  Identificador = ExpresionBooleana ; */
+    public static final class Asignacion extends Sentencia {
+        public final String variable;
+        public final Expresion valor;
+
+        Asignacion(int indiceToken, String variable, Expresion valor) {
+            super(indiceToken);
+            this.variable = variable;
+            this.valor = valor;
+        }
+    }
+
+    /** while ( ExpresionBooleana ) { ListaSentencias } */
+    public static final class Ciclo extends Sentencia {
+        public final Expresion condicion;
+        public final List<Sentencia> cuerpo;
+        public final int indiceCierre;      // token '}' que cierra el cuerpo
+
+        Ciclo(int indiceToken, Expresion condicion, List<Sentencia> cuerpo, int indiceCierre) {
+            super(indiceToken);
+            this.condicion = condicion;
+            this.cuerpo = cuerpo;
+            this.indiceCierre = indiceCierre;
+        }
+    }
+
+    public abstract static class Expresion {
+        public final int indiceToken;
+        Expresion(int indiceToken) { this.indiceToken = indiceToken; }
+    }
+
+    /** Número entero o true/false (true = 1, false = 0). */
+    public static final class Constante extends Expresion {
+        public final long valor;
+        public final boolean booleana;
+
+        Constante(int indiceToken, long valor, boolean booleana) {
+            super(indiceToken);
+            this.valor = valor;
+            this.booleana = booleana;
+        }
+
+        @Override
+        public String toString() { return booleana ? (valor != 0 ? "true" : "false") : Long.toString(valor); }
+    }
+
+    public static final class Variable extends Expresion {
+        public final String nombre;
+
+        Variable(int indiceToken, String nombre) {
+            super(indiceToken);
+            this.nombre = nombre;
+        }
+
+        @Override
+        public String toString() { return nombre; }
+    }
+
+    /** Operación binaria: '+', '-', '*' (aritméticas) o '<', '>' (comparaciones). */
+    public static final class Binaria extends Expresion {
+        public final char operador;
+        public final Expresion izquierda;
+        public final Expresion derecha;
+
+        Binaria(int indiceToken, char operador, Expresion izquierda, Expresion derecha) {
+            super(indiceToken);
+            this.operador = operador;
+            this.izquierda = izquierda;
+            this.derecha = derecha;
+        }
+
+        public boolean esComparacion() { return operador == '<' || operador == '>'; }
+
+        @Override
+        public String toString() { return izquierda + " " + operador + " " + derecha; }
+    }
+
+    // ===========================
+    // Construcción
+    // ===========================
+
+    /** Construye el árbol a partir de los tokens de un programa sintácticamente correcto.
+     * Lanza IllegalArgumentException si los tokens no forman un programa válido. */
+    public static Programa construir(List<Token> tokens) {
+        Constructor c = new Constructor(tokens);
+        return c.programa();
+    }
+
+    private static final class Constructor {
+        private final List<Token> tokens;
+        private int pos;
+
+        Constructor(List<Token> tokens) { this.tokens = tokens; }
+
+        Programa programa() {
+            esperar(Parser.C_CLASS);
+            String nombre = tokens.get(pos).valor;
+            esperar(Parser.C_IDENTIFICADOR);
+            esperar(Parser.C_LLAVEABRE);
+            // Las declaraciones ya están en la tabla de símbolos; aquí solo se saltan
+            while (es(Parser.C_INT) || es(Parser.C_BOOLEAN)) pos += 3;
+            List<Sentencia> sentencias = listaSentencias();
+            esperar(Parser.C_LLAVECIERRA);
+            return new Programa(nombre, Collections.unmodifiableList(sentencias));
+        }
+
+        List<Sentencia> listaSentencias() {
+            List<Sentencia> lista = new ArrayList<>();
+            while (es(Parser.C_WHILE) || es(Parser.C_IDENTIFICADOR)) {
+                lista.add(es(Parser.C_WHILE) ? ciclo() : asignacion());
+            }
+            return lista;
+        }
+
+        Sentencia ciclo() {
+            int inicio = pos;
+            esperar(Parser.C_WHILE);
+            esperar(Parser.C_PARENTABRE);
+            Expresion condicion = expresionBooleana();
+            esperar(Parser.C_PARENTCIERRA);
+            esperar(Parser.C_LLAVEABRE);
+            List<Sentencia> cuerpo = listaSentencias();
+            int cierre = pos;
+            esperar(Parser.C_LLAVECIERRA);
+            return new Ciclo(inicio, condicion, Collections.unmodifiableList(cuerpo), cierre);
+        }
+
+        Sentencia asignacion() {
+            int inicio = pos;
+            String variable = tokens.get(pos).valor;
+            esperar(Parser.C_IDENTIFICADOR);
+            esperar(Parser.C_ASIGNACION);
+            Expresion valor = expresionBooleana();
+            esperar(Parser.C_PUNTOCOMA);
+            return new Asignacion(inicio, variable, valor);
+        }
+
+        /** true | false | Expresion [CMP Expresion] */
+        Expresion expresionBooleana() {
+            if (es(Parser.C_TRUE) || es(Parser.C_FALSE)) {
+                Constante c = new Constante(pos, es(Parser.C_TRUE) ? 1 : 0, true);
+                pos++;
+                return c;
+            }
+            Expresion izq = suma();
+            if (es(Parser.C_CMPMEN) || es(Parser.C_CMPMAY)) {
+                int indice = pos;
+                char op = es(Parser.C_CMPMEN) ? '<' : '>';
+                pos++;
+                return new Binaria(indice, op, izq, suma());
+            }
+            return izq;
+        }
+
+        Expresion suma() {
+            Expresion e = producto();
+            while (es(Parser.C_OPMAS) || es(Parser.C_OPMENOS)) {
+                int indice = pos;
+                char op = es(Parser.C_OPMAS) ? '+' : '-';
+                pos++;
+                e = new Binaria(indice, op, e, producto());
+            }
+            return e;
+        }
+
+        Expresion producto() {
+            Expresion e = termino();
+            while (es(Parser.C_OPMULTI)) {
+                int indice = pos++;
+                e = new Binaria(indice, '*', e, termino());
+            }
+            return e;
+        }
+
+        Expresion termino() {
+            Token t = actual();
+            if (t != null && t.codigo == Parser.C_NUMENTERO) {
+                pos++;
+                // Un literal que no cabe en long solo puede venir de un programa absurdo; se satura
+                long v;
+                try { v = Long.parseLong(t.valor); } catch (NumberFormatException e) { v = Long.MAX_VALUE; }
+                return new Constante(pos - 1, v, false);
+            }
+            if (t != null && t.codigo == Parser.C_IDENTIFICADOR) {
+                pos++;
+                return new Variable(pos - 1, t.valor);
+            }
+            throw new IllegalArgumentException("Se esperaba un término en el token " + pos);
+        }
+
+        private Token actual() { return pos < tokens.size() ? tokens.get(pos) : null; }
+
+        private boolean es(int codigo) {
+            Token t = actual();
+            return t != null && t.codigo == codigo;
+        }
+
+        private void esperar(int codigo) {
+            if (!es(codigo)) throw new IllegalArgumentException("Token inesperado en la posición " + pos);
+            pos++;
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package application;
 
+import java.io.IOException;
+
 import interfaz.Interface;
 
+/** Punto de entrada: sin argumentos abre la interfaz; con argumentos compila por consola
+ * (los mismos que CompiladorConsola) sin cargar AWT ni Swing.
+ * Interface solo se nombra dentro de abrirInterfaz(), así que la JVM no la carga (ni Swing,
+ * ni las fuentes) a menos que se llegue a ese método.
+ */
 public class AppMicroJavaCompiler {
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0) CompiladorConsola.main(args);
+		else abrirInterfaz();
+	}
+
+	private static void abrirInterfaz() {
 		Interface Compiler = new Interface();
 		Compiler.setVisible(true);
 	}
 }
-
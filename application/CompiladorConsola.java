@@ -0,0 +1,201 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import analisis.AnalizadorCiclos;
+import analisis.AnalizadorFlujo;
+import analisis.InformeCiclo;
+import cache.CacheCompilacion;
+import data.Compilador;
+import data.Diagnostico;
+import data.Metricas;
+import data.Parser;
+import data.ResultadoCompilacion;
+import data.Scanner;
+import data.Semantico;
+import data.Token;
+import formato.EscritorBinario;
+import formato.EscritorNdjson;
+
+/** Compilador de línea de comandos: ejecuta Léxico -> Parser -> Semántico sobre cada archivo.
+ * Uso: java application.CompiladorConsola [--metricas] [--cache directorio] [--binario] [--ciclos] [--flujo] [--ndjson [--solo-lexico]] archivo...
+ *        java application.CompiladorConsola [--cache directorio] --vigilar directorio [--patron glob]
+ * Con --binario se escribe además archivo.mjb con los tokens y la tabla de símbolos (formato.EscritorBinario).
+ * Con --ciclos se reporta, para los programas correctos, si cada while termina y cuánto cuesta (analisis.AnalizadorCiclos);
+ * con --flujo, las variables leídas antes de asignarse y las asignaciones que nunca se leen (analisis.AnalizadorFlujo).
+ * Con --ndjson la salida es NDJSON (formato.EscritorNdjson): los tokens se escriben mientras se lee el archivo
+ * y al final los diagnósticos, la tabla de símbolos y un resumen; con --solo-lexico además no se guardan
+ * los tokens, así que la memoria no depende del tamaño del archivo, pero solo se corre el Léxico: el
+ * resumen lo indica con "fase":"LEXICO" y el código de salida solo refleja los errores léxicos.
+ * --ndjson no se combina con --metricas, --cache, --binario, --ciclos ni --flujo.
+ * Con --vigilar se compila el directorio y luego se recompila cada archivo que cambie (VigilanteCompilacion).
+ */
+public class CompiladorConsola {
+
+    private static final String USO =
+            "Uso: java application.CompiladorConsola [--metricas] [--cache directorio] [--binario] [--ciclos] [--flujo] [--ndjson [--solo-lexico]] archivo...\n"
+          + "       java application.CompiladorConsola [--cache directorio] --vigilar directorio [--patron glob]";
+
+    public static void main(String[] args) throws IOException {
+        boolean conMetricas = false, conBinario = false, conCiclos = false, conFlujo = false,
+                conNdjson = false, soloLexico = false;
+        String dirCache = null, dirVigilado = null, patron = "*.{txt,mj}";
+        List<String> archivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--metricas".equals(args[i])) conMetricas = true;
+            else if ("--binario".equals(args[i])) conBinario = true;
+            else if ("--ciclos".equals(args[i])) conCiclos = true;
+            else if ("--flujo".equals(args[i])) conFlujo = true;
+            else if ("--ndjson".equals(args[i])) conNdjson = true;
+            else if ("--solo-lexico".equals(args[i])) soloLexico = true;
+            else if ("--cache".equals(args[i]) && i + 1 < args.length) dirCache = args[++i];
+            else if ("--vigilar".equals(args[i]) && i + 1 < args.length) dirVigilado = args[++i];
+            else if ("--patron".equals(args[i]) && i + 1 < args.length) patron = args[++i];
+            else archivos.add(args[i]);
+        }
+        if (dirVigilado != null) {
+            try (CacheCompilacion cache = (dirCache != null) ? new CacheCompilacion(Paths.get(dirCache)) : null) {
+                new VigilanteCompilacion(Paths.get(dirVigilado), patron, cache).vigilar();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (archivos.isEmpty()) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+        if (conNdjson && (conMetricas || dirCache != null || conBinario || conCiclos || conFlujo)) {
+            System.err.println("--ndjson no se combina con --metricas, --cache, --binario, --ciclos ni --flujo.\n" + USO);
+            System.exit(2);
+        }
+        if (soloLexico && !conNdjson) {
+            System.err.println("--solo-lexico solo se usa con --ndjson.\n" + USO);
+            System.exit(2);
+        }
+
+        if (conNdjson) {
+            boolean correctos = true;
+            try (EscritorNdjson out = new EscritorNdjson(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+                for (String archivo : archivos) correctos &= emitirNdjson(Paths.get(archivo), soloLexico, out);
+            }
+            System.exit(correctos ? 0 : 1);
+        }
+
+        boolean todosCorrectos = true;
+        try (CacheCompilacion cache = (dirCache != null) ? new CacheCompilacion(Paths.get(dirCache)) : null) {
+            for (String archivo : archivos) {
+                todosCorrectos &= compilarArchivo(archivo, cache, conMetricas, conBinario, conCiclos, conFlujo);
+            }
+        }
+        System.exit(todosCorrectos ? 0 : 1);
+    }
+
+    /** Compila e imprime un archivo en el modo de consola normal; devuelve si no tuvo errores. */
+    private static boolean compilarArchivo(String archivo, CacheCompilacion cache, boolean conMetricas,
+                                           boolean conBinario, boolean conCiclos, boolean conFlujo) throws IOException {
+        String codigo = new String(Files.readAllBytes(Paths.get(archivo)), StandardCharsets.UTF_8);
+        Metricas metricas = conMetricas ? new Metricas() : null;
+        System.out.println("== " + archivo);
+
+        long aciertosAntes = (cache != null) ? cache.getAciertos() : 0;
+        ResultadoCompilacion r = (cache != null)
+                ? cache.compilar(codigo, metricas)
+                : Compilador.compilar(codigo, metricas);
+        boolean correcto = imprimir(r);
+        if (conCiclos && r.esCorrecto()) imprimirCiclos(r);
+        if (conFlujo && r.esCorrecto()) imprimirFlujo(r);
+        if (conBinario) EscritorBinario.escribir(r.getTokens(), r.getTablaSimbolos(), Paths.get(archivo + ".mjb"));
+
+        if (cache != null && cache.getAciertos() > aciertosAntes) System.out.println("(desde la caché)");
+        else if (metricas != null) System.out.println(metricas.resumen());
+        return correcto;
+    }
+
+    /** Escribe un archivo como NDJSON. Los tokens (y los errores léxicos) salen mientras se lee;
+     * el Parser y el Semántico necesitan la lista completa, así que se omiten con soloLexico
+     * (y entonces el resultado solo dice si hubo errores léxicos). */
+    static boolean emitirNdjson(Path archivo, boolean soloLexico, EscritorNdjson out) throws IOException {
+        List<Token> tokens = soloLexico ? null : new ArrayList<>();
+        long[] cuenta = new long[2];    // tokens, errores léxicos
+        out.archivo(archivo.toString());
+        try (Reader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            Scanner.analizar(entrada, (t, posicion) -> {
+                try {
+                    out.token(cuenta[0], t, posicion);
+                    if (t.tipo == Token.TokenTipo.Invalido) {
+                        cuenta[1]++;
+                        out.diagnostico(Metricas.Fase.LEXICO, "Error léxico: token inválido -> " + t.valor, cuenta[0]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (tokens != null) tokens.add(t);
+                cuenta[0]++;
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (tokens == null) {
+            out.resumenLexico(cuenta[0], cuenta[1]);
+            out.flush();
+            return cuenta[1] == 0;
+        }
+
+        Metricas.Fase falla = (cuenta[1] > 0) ? Metricas.Fase.LEXICO : null;
+        if (falla == null) {
+            Parser.Resultado sintactico = new Parser(tokens).analizar();
+            if (!sintactico.esCorrecto()) {
+                out.diagnostico(sintactico.getDiagnostico());
+                falla = Metricas.Fase.SINTACTICO;
+            } else {
+                Semantico.Resultado sem = new Semantico(tokens).analizar();
+                for (Diagnostico d : sem.getDiagnosticos()) out.diagnostico(d);
+                for (Semantico.Simbolo s : sem.getTablaSimbolos()) out.simbolo(s);
+                if (!sem.esCorrecto()) falla = Metricas.Fase.SEMANTICO;
+            }
+        }
+        out.resumen(cuenta[0], falla);
+        out.flush();
+        return falla == null;
+    }
+
+    static void imprimirCiclos(ResultadoCompilacion r) {
+        List<InformeCiclo> informes = AnalizadorCiclos.analizar(r.getTokens(), r.getTablaSimbolos());
+        for (int i = 0; i < informes.size(); i++) {
+            InformeCiclo c = informes.get(i);
+            System.out.println((c.esProblematico() ? "AVISO " : "") + "ciclo " + (i + 1) + ": " + c);
+        }
+    }
+
+    static void imprimirFlujo(ResultadoCompilacion r) {
+        for (Diagnostico d : AnalizadorFlujo.analizar(r.getTokens(), r.getTablaSimbolos())) {
+            System.out.println("AVISO " + d.mensaje);
+        }
+    }
+
+    static boolean imprimir(ResultadoCompilacion r) {
+        if (r.esCorrecto()) {
+            System.out.println("Compilación correcta.");
+            return true;
+        }
+        switch (r.getFaseFallida()) {
+            case SINTACTICO: System.out.println("SYNTAX ERROR"); break;
+            case SEMANTICO:  System.out.println("SEMANTIC ERROR"); break;
+            default: break;
+        }
+        if (!r.getErrores().isEmpty()) System.out.println(r.getErrores());
+        return false;
+    }
+}
@@ -0,0 +1,259 @@
+package application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cache.CacheCompilacion;
+import data.Compilador;
+import data.ResultadoCompilacion;
+
+/** Modo vigilancia: compila todos los programas de un directorio y después, cada vez que uno
+ * cambia, vuelve a compilar solo ese archivo.
+ *
+ * Los eventos del WatchService se juntan hasta que pasan RETARDO_MS sin eventos nuevos (un
+ * editor suele escribir, truncar y renombrar en la misma guardada) y cada archivo pendiente
+ * se compila una vez en un pool de hilos, sin detener la lectura de eventos: si un archivo
+ * vuelve a cambiar mientras se compila, la compilación vieja se descarta al terminar. Se guarda
+ * el último resultado de cada archivo; si el contenido no cambió (el editor solo tocó la fecha)
+ * no se vuelve a compilar.
+ */
+public class VigilanteCompilacion {
+
+    /** Tiempo sin eventos nuevos antes de compilar lo pendiente. */
+    static final long RETARDO_MS = 50;
+
+    private final Path directorio;
+    private final PathMatcher patron;
+    private final CacheCompilacion cache;       // puede ser null
+    private final ExecutorService pool;
+
+    /** Último resultado de cada archivo. */
+    private final Map<Path, Estado> resultados = new ConcurrentHashMap<>();
+    /** Versión de cada archivo: un resultado solo se guarda si nadie pidió otra compilación después. */
+    private final Map<Path, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    private static final class Estado {
+        final String codigo;
+        final ResultadoCompilacion resultado;   // null si el archivo no se pudo leer
+        final long nanos;
+
+        Estado(String codigo, ResultadoCompilacion resultado, long nanos) {
+            this.codigo = codigo;
+            this.resultado = resultado;
+            this.nanos = nanos;
+        }
+    }
+
+    public VigilanteCompilacion(Path directorio, String patron, CacheCompilacion cache) {
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.patron = FileSystems.getDefault().getPathMatcher("glob:" + patron);
+        this.cache = cache;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "compilacion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Compila todo una vez y vigila el directorio hasta que se interrumpa el hilo. */
+    public void vigilar() throws IOException, InterruptedException {
+        try (WatchService servicio = FileSystems.getDefault().newWatchService()) {
+            // Se registra antes de la primera pasada para no perder cambios hechos mientras tanto
+            directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            compilar(listarProgramas(), true).esperar();
+            System.out.println("Vigilando " + directorio + " (Ctrl+C para salir)");
+
+            while (true) {
+                Set<Path> pendientes = new LinkedHashSet<>();
+                WatchKey llave = servicio.take();
+                boolean completo = false;
+                // Juntar la ráfaga: seguir leyendo hasta que pasen RETARDO_MS sin eventos
+                while (llave != null) {
+                    completo |= recolectar(llave, pendientes);
+                    if (!llave.reset()) {
+                        System.out.println("El directorio " + directorio + " ya no está disponible.");
+                        return;
+                    }
+                    llave = servicio.poll(RETARDO_MS, TimeUnit.MILLISECONDS);
+                }
+                compilar(completo ? listarProgramas() : pendientes, false);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // se cerró al salir
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Agrega a 'pendientes' los archivos del evento; devuelve true si hay que volver a revisar todo. */
+    private boolean recolectar(WatchKey llave, Set<Path> pendientes) {
+        boolean completo = false;
+        for (WatchEvent<?> evento : llave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                completo = true;    // se perdieron eventos
+                continue;
+            }
+            Path nombre = (Path) evento.context();
+            if (patron.matches(nombre)) pendientes.add(directorio.resolve(nombre));
+        }
+        return completo;
+    }
+
+    private List<Path> listarProgramas() throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio)) {
+            for (Path p : ds) {
+                if (Files.isRegularFile(p) && patron.matches(p.getFileName())) archivos.add(p);
+            }
+        }
+        // Los que ya no existen (se borraron mientras se perdían eventos) también se revisan
+        Set<Path> todos = new LinkedHashSet<>(archivos);
+        todos.addAll(resultados.keySet());
+        List<Path> r = new ArrayList<>(todos);
+        Collections.sort(r);
+        return r;
+    }
+
+    /** Archivos que se mandaron a compilar juntos: el último en terminar imprime lo que cambió. */
+    private final class Lote {
+        private final int tamano;
+        private final boolean inicial;
+        private final long inicio = System.nanoTime();
+        private final Map<Path, String> lineas = new ConcurrentHashMap<>();
+        private final AtomicInteger faltan;
+        private final CountDownLatch impreso = new CountDownLatch(1);
+
+        Lote(int tamano, boolean inicial) {
+            this.tamano = tamano;
+            this.inicial = inicial;
+            this.faltan = new AtomicInteger(tamano);
+        }
+
+        void terminar(Path archivo, String linea) {
+            if (linea != null) lineas.put(archivo, linea);
+            if (faltan.decrementAndGet() > 0) return;
+            long total = System.nanoTime() - inicio;
+            if (!lineas.isEmpty() || inicial) {      // si no, nada cambió de verdad
+                synchronized (System.out) {
+                    for (Map.Entry<Path, String> l : new TreeMap<>(lineas).entrySet()) System.out.println(l.getValue());
+                    System.out.println(resumen() + String.format(" | %d archivo(s) en %.1f ms", tamano, total / 1e6));
+                }
+            }
+            impreso.countDown();
+        }
+
+        void esperar() throws InterruptedException {
+            impreso.await();
+        }
+    }
+
+    /** Manda los archivos al pool y vuelve enseguida; cada uno reporta al Lote al terminar. */
+    private Lote compilar(Iterable<Path> archivos, boolean inicial) {
+        List<Path> lista = new ArrayList<>();
+        for (Path p : archivos) lista.add(p);
+        Lote lote = new Lote(lista.size(), inicial);
+        if (lista.isEmpty()) {
+            lote.impreso.countDown();
+            return lote;
+        }
+        for (Path p : lista) {
+            long version = versiones.computeIfAbsent(p, k -> new AtomicLong()).incrementAndGet();
+            pool.execute(() -> {
+                String linea = null;
+                try {
+                    linea = compilarArchivo(p, version);
+                } catch (RuntimeException e) {
+                    // Por ejemplo un UncheckedIOException de la caché: se reporta y se sigue vigilando
+                    guardar(p, version, new Estado(null, null, 0));
+                    linea = directorio.relativize(p) + ": error interno (" + e + ")";
+                } catch (StackOverflowError e) {
+                    // El Parser es recursivo: miles de while anidados agotan la pila del hilo
+                    guardar(p, version, new Estado(null, null, 0));
+                    linea = directorio.relativize(p) + ": error interno (anidamiento demasiado profundo)";
+                } finally {
+                    // Aunque escape otro Error, el lote tiene que terminar o el ciclo de vigilancia se queda esperando
+                    lote.terminar(p, linea);
+                }
+            });
+        }
+        return lote;
+    }
+
+    /** Compila un archivo y devuelve la línea a imprimir, o null si no hubo cambios que reportar. */
+    private String compilarArchivo(Path archivo, long version) {
+        String nombre = directorio.relativize(archivo).toString();
+        if (!Files.exists(archivo)) {
+            return (resultados.remove(archivo) != null) ? nombre + ": eliminado" : null;
+        }
+
+        long t0 = System.nanoTime();
+        String codigo;
+        try {
+            codigo = new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            guardar(archivo, version, new Estado(null, null, 0));
+            return nombre + ": no se pudo leer (" + e.getMessage() + ")";
+        }
+        Estado anterior = resultados.get(archivo);
+        if (anterior != null && codigo.equals(anterior.codigo)) return null;
+
+        ResultadoCompilacion r = (cache != null) ? cache.compilar(codigo, null) : Compilador.compilar(codigo, null);
+        long nanos = System.nanoTime() - t0;
+        if (!guardar(archivo, version, new Estado(codigo, r, nanos))) return null;    // ya hay una versión más nueva
+        return String.format("%s: %s (%.2f ms)", nombre, describir(r), nanos / 1e6);
+    }
+
+    /** Guarda el estado si 'version' sigue siendo la última pedida para el archivo. */
+    private boolean guardar(Path archivo, long version, Estado estado) {
+        AtomicLong actual = versiones.get(archivo);
+        if (actual == null || actual.get() != version) return false;
+        resultados.put(archivo, estado);
+        return true;
+    }
+
+    private static String describir(ResultadoCompilacion r) {
+        if (r.esCorrecto()) return "correcto";
+        String primera = r.getErrores();
+        int nl = primera.indexOf('\n');
+        if (nl >= 0) primera = primera.substring(0, nl);
+        switch (r.getFaseFallida()) {
+            case LEXICO:     return "LEXICAL ERROR - " + primera;
+            case SINTACTICO: return "SYNTAX ERROR - " + primera;
+            default:         return "SEMANTIC ERROR - " + primera;
+        }
+    }
+
+    private String resumen() {
+        int correctos = 0, conErrores = 0;
+        for (Estado e : resultados.values()) {
+            if (e.resultado != null && e.resultado.esCorrecto()) correctos++;
+            else conErrores++;
+        }
+        return (correctos + conErrores) + " programa(s): " + correctos + " correcto(s), " + conErrores + " con errores";
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import data.Scanner;
+import data.Token;
+import herramientas.GeneradorPrograma;
+
+/** Programa MicroJava sintético compartido por todos los benchmarks.
+ * Se genera una vez por combinación de parámetros (tamaño, anidamiento, declaraciones).
+ * El caso de 100 MB necesita unos 4 GB de heap; el heap de los forks se fija en la tarea jmh.
+ */
+@State(Scope.Benchmark)
+public class EntradaPrograma {
+
+    /** Tamaño aproximado del código fuente en KB (1 KB a 100 MB). */
+    @Param({"1", "1024", "102400"})
+    public int tamanoKB;
+
+    /** Profundidad de anidamiento de los ciclos while. */
+    @Param({"1", "16"})
+    public int profundidad;
+
+    /** Cantidad de variables declaradas: "pocas" son 10 y "muchas" son 1000, o las que quepan en
+     * la mitad del tamaño pedido (cada una ocupa unos 15 bytes), para que la entrada de 1 KB no
+     * se convierta en una de 15 KB. */
+    @Param({"pocas", "muchas"})
+    public String declaraciones;
+
+    public String fuente;
+    public List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fuente = new GeneradorPrograma()
+                .setTamanoObjetivo(tamanoKB * 1024L)
+                .setProfundidad(profundidad)
+                .setDeclaraciones(numeroDeclaraciones())
+                .setSemilla(2024)
+                .generar();
+        tokens = lexear(fuente);
+    }
+
+    private int numeroDeclaraciones() {
+        if ("pocas".equals(declaraciones)) return 10;
+        return (int) Math.min(1000, tamanoKB * 1024L / 2 / 15);
+    }
+
+    /** Lista de tokens tal como la arma la interfaz a partir del Scanner. */
+    static List<Token> lexear(String fuente) {
+        Scanner sc = new Scanner(fuente);
+        List<Token> lista = new ArrayList<>();
+        for (Token t = sc.siguienteToken(); t != null; t = sc.siguienteToken()) lista.add(t);
+        return lista;
+    }
+}
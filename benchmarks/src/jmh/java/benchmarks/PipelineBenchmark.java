@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.Parser;
+import data.Semantico;
+import data.Token;
+
+/** Pipeline completo como lo ejecuta la interfaz: Tokens -> Parser -> Semantico. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Benchmark
+    public boolean compilar(EntradaPrograma entrada) {
+        List<Token> tokens = EntradaPrograma.lexear(entrada.fuente);
+        if (!new Parser(tokens).analizar().esCorrecto()) return false;
+        return new Semantico(tokens).analizar().esCorrecto();
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import data.Scanner;
+import data.Token;
+
+/** Fase léxica: construcción del Scanner (que ya tokeniza) y recorrido de los tokens. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerBenchmark {
+
+    @Benchmark
+    public Scanner construir(EntradaPrograma entrada) {
+        return new Scanner(entrada.fuente);
+    }
+
+    @Benchmark
+    public void recorrerTokens(EntradaPrograma entrada, Blackhole bh) {
+        Scanner sc = new Scanner(entrada.fuente);
+        for (Token t = sc.siguienteToken(); t != null; t = sc.siguienteToken()) bh.consume(t);
+        bh.consume(sc.hayError());
+    }
+}
@@ -0,0 +1,437 @@
+package cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import data.Compilador;
+import data.Metricas;
+import data.ResultadoCompilacion;
+import data.Token;
+import formato.BufferBinario;
+import formato.EscritorBinario;
+import formato.LectorBinario;
+
+/** Caché de compilación en disco, indexada por SHA-256(versión del compilador + bytes del fuente).
+ *
+ * Cada resultado se guarda en su propio archivo binario (&lt;llave&gt;.mjc) con el veredicto,
+ * los errores, y los tokens y la tabla de símbolos en el formato de formato.EscritorBinario. Un índice de tamaño fijo (indice.idx)
+ * mapeado en memoria dice qué llaves existen y cuándo se usaron por última vez, así que un
+ * acierto solo cuesta una búsqueda en el índice y la lectura de un archivo pequeño.
+ *
+ * El índice se modifica siempre con un FileLock sobre indice.lock, por lo que varios procesos
+ * pueden compartir el mismo directorio. Las entradas se escriben en un archivo temporal y se
+ * renombran de forma atómica. Cuando se supera el número de entradas o el tamaño máximo se
+ * eliminan las entradas usadas hace más tiempo (LRU).
+ */
+public class CacheCompilacion implements AutoCloseable {
+
+    private static final int MAGIA_INDICE = 0x4D4A4349;   // "MJCI"
+    private static final int MAGIA_ENTRADA = 0x4D4A4345;  // "MJCE"
+    private static final int VERSION_FORMATO = 4;
+
+    // Cabecera del índice
+    private static final int H_MAGIA = 0, H_VERSION = 4, H_CAPACIDAD = 8, H_OCUPADAS = 12, H_BORRADAS = 16;
+    private static final int H_RELOJ = 24, H_BYTES = 32;
+    private static final int TAM_CABECERA = 64;
+
+    // Ranuras del índice: estado, tamaño de la entrada, último acceso, llave
+    private static final int S_ESTADO = 0, S_TAMANO = 4, S_ACCESO = 8, S_LLAVE = 16;
+    private static final int TAM_LLAVE = 32;
+    private static final int TAM_RANURA = S_LLAVE + TAM_LLAVE;
+    private static final int VACIA = 0, OCUPADA = 1, BORRADA = 2;
+
+    // Un solo candado por directorio dentro de la JVM (FileLock solo excluye a otros procesos)
+    private static final Map<Path, ReentrantLock> CANDADOS = new ConcurrentHashMap<>();
+
+    private static final Metricas.Fase[] FASES = Metricas.Fase.values();
+
+    private static final int CAPACIDAD_MAXIMA = 1 << 22;
+
+    private final Path directorio;
+    private final int capacidadPedida;
+    private final long maxBytes;
+    private final ReentrantLock candado;
+    private final FileChannel canalCandado;
+
+    // Los dos cambian si otro proceso vuelve a crear el índice; solo se usan con el candado tomado
+    private int capacidad;
+    private MappedByteBuffer indice;
+
+    private final AtomicLong aciertos = new AtomicLong(), fallos = new AtomicLong();
+
+    public CacheCompilacion(Path directorio) throws IOException {
+        this(directorio, 4096, 256L * 1024 * 1024);
+    }
+
+    /** @param capacidad  máximo de entradas en el índice, si hay que crearlo (si ya existe se usa la suya)
+     *  @param maxBytes   tamaño máximo en disco de todas las entradas */
+    public CacheCompilacion(Path directorio, int capacidad, long maxBytes) throws IOException {
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.capacidadPedida = Math.max(16, Math.min(CAPACIDAD_MAXIMA, capacidad));
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directorio);
+
+        candado = CANDADOS.computeIfAbsent(this.directorio, k -> new ReentrantLock());
+        canalCandado = FileChannel.open(this.directorio.resolve("indice.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        candado.lock();
+        try {
+            FileLock l = canalCandado.lock();
+            try {
+                mapear();
+            } finally {
+                l.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            canalCandado.close();
+            throw e;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /** Cierra el archivo del candado. El índice mapeado se libera cuando el recolector lo descarta. */
+    @Override
+    public void close() throws IOException {
+        canalCandado.close();
+    }
+
+    // ===========================
+    // API
+    // ===========================
+
+    /** Devuelve el resultado guardado para este fuente, o null si no está en la caché. */
+    public ResultadoCompilacion buscar(String codigo) {
+        byte[] llave = llave(codigo);
+        candado.lock();
+        try {
+            FileLock l = canalCandado.lock();
+            try {
+                comprobarIndice();
+                int ranura = buscarRanura(llave);
+                if (ranura < 0) {
+                    fallos.incrementAndGet();
+                    return null;
+                }
+                indice.putLong(posRanura(ranura) + S_ACCESO, siguienteReloj());
+            } finally {
+                l.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.unlock();
+        }
+
+        // La lectura del archivo se hace fuera del candado; si otro proceso lo
+        // eliminó mientras tanto se trata como un fallo
+        Path archivo = archivoEntrada(llave);
+        try {
+            ResultadoCompilacion r = decodificar(Files.readAllBytes(archivo), llave);
+            if (r == null) {
+                // Entrada dañada o de otra versión: se borra, y guardar() la vuelve a escribir
+                Files.deleteIfExists(archivo);
+                fallos.incrementAndGet();
+                return null;
+            }
+            aciertos.incrementAndGet();
+            return r;
+        } catch (NoSuchFileException e) {
+            fallos.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Guarda (o reemplaza) el resultado de compilar este fuente. */
+    public void guardar(String codigo, ResultadoCompilacion resultado) {
+        byte[] llave = llave(codigo);
+        byte[] datos = codificar(llave, resultado);
+        Path destino = archivoEntrada(llave);
+        try {
+            Path tmp = directorio.resolve(hex(llave) + ".tmp" + ThreadLocalRandom.current().nextInt(1 << 30));
+            Files.write(tmp, datos);
+            try {
+                Files.move(tmp, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            candado.lock();
+            try {
+                FileLock l = canalCandado.lock();
+                try {
+                    comprobarIndice();
+                    registrar(llave, datos.length);
+                    desalojar(llave);
+                } finally {
+                    l.release();
+                }
+            } finally {
+                candado.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Busca en la caché y, si no está, compila y guarda el resultado. */
+    public ResultadoCompilacion compilar(String codigo, Metricas metricas) {
+        ResultadoCompilacion r = buscar(codigo);
+        if (r == null) {
+            r = Compilador.compilar(codigo, metricas);
+            guardar(codigo, r);
+        }
+        return r;
+    }
+
+    public long getAciertos() { return aciertos.get(); }
+    public long getFallos()   { return fallos.get(); }
+
+    // ===========================
+    // Índice (se llama con el candado tomado)
+    // ===========================
+
+    /** Mapea indice.idx. Si ya tiene un índice válido se usa con la capacidad de su cabecera,
+     * aunque no sea la pedida: así los procesos configurados con otra capacidad comparten el
+     * mismo índice en lugar de borrárselo uno al otro. Si no, se crea con la capacidad pedida. */
+    private void mapear() throws IOException {
+        try (FileChannel canal = FileChannel.open(directorio.resolve("indice.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int cap = capacidadPedida;
+            ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA);
+            while (cabecera.hasRemaining() && canal.read(cabecera, cabecera.position()) > 0) { }
+            if (!cabecera.hasRemaining() && cabecera.getInt(H_MAGIA) == MAGIA_INDICE
+                    && cabecera.getInt(H_VERSION) == VERSION_FORMATO) {
+                int c = cabecera.getInt(H_CAPACIDAD);
+                if (c >= 16 && c <= CAPACIDAD_MAXIMA && canal.size() >= TAM_CABECERA + (long) c * TAM_RANURA) cap = c;
+            }
+            capacidad = cap;
+            // map() agranda el archivo si hace falta; las ranuras nuevas quedan en cero
+            indice = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAM_CABECERA + (long) cap * TAM_RANURA);
+            if (!cabeceraValida()) inicializarIndice();
+        }
+    }
+
+    /** Antes de cada operación: si otro proceso volvió a crear el índice (otra capacidad, o
+     * porque estaba dañado), se mapea de nuevo en lugar de usar ranuras que ya no son las suyas. */
+    private void comprobarIndice() throws IOException {
+        if (!cabeceraValida()) mapear();
+    }
+
+    private boolean cabeceraValida() {
+        int ocupadas = indice.getInt(H_OCUPADAS), borradas = indice.getInt(H_BORRADAS);
+        return indice.getInt(H_MAGIA) == MAGIA_INDICE && indice.getInt(H_VERSION) == VERSION_FORMATO
+                && indice.getInt(H_CAPACIDAD) == capacidad
+                && ocupadas >= 0 && borradas >= 0 && ocupadas + borradas <= capacidad;
+    }
+
+    private void inicializarIndice() {
+        for (int i = 0; i < indice.capacity(); i += 8) indice.putLong(i, 0L);
+        indice.putInt(H_MAGIA, MAGIA_INDICE);
+        indice.putInt(H_VERSION, VERSION_FORMATO);
+        indice.putInt(H_CAPACIDAD, capacidad);
+    }
+
+    private int posRanura(int i) { return TAM_CABECERA + i * TAM_RANURA; }
+
+    private int inicioSondeo(byte[] llave) {
+        int h = ((llave[0] & 0xFF) << 24) | ((llave[1] & 0xFF) << 16) | ((llave[2] & 0xFF) << 8) | (llave[3] & 0xFF);
+        return Math.floorMod(h, capacidad);
+    }
+
+    /** Sondeo lineal; las ranuras borradas no detienen la búsqueda. */
+    private int buscarRanura(byte[] llave) {
+        int i = inicioSondeo(llave);
+        for (int n = 0; n < capacidad; n++, i = (i + 1) % capacidad) {
+            int estado = indice.getInt(posRanura(i) + S_ESTADO);
+            if (estado == VACIA) return -1;
+            if (estado == OCUPADA && llaveIgual(i, llave)) return i;
+        }
+        return -1;
+    }
+
+    private boolean llaveIgual(int ranura, byte[] llave) {
+        int base = posRanura(ranura) + S_LLAVE;
+        for (int k = 0; k < TAM_LLAVE; k++) {
+            if (indice.get(base + k) != llave[k]) return false;
+        }
+        return true;
+    }
+
+    private void registrar(byte[] llave, int tamano) {
+        int existente = buscarRanura(llave);
+        if (existente >= 0) {
+            int pos = posRanura(existente);
+            ajustarBytes(tamano - indice.getInt(pos + S_TAMANO));
+            indice.putInt(pos + S_TAMANO, tamano);
+            indice.putLong(pos + S_ACCESO, siguienteReloj());
+            return;
+        }
+        if (indice.getInt(H_OCUPADAS) + indice.getInt(H_BORRADAS) >= capacidad - 1) compactar();
+
+        int i = inicioSondeo(llave);
+        while (indice.getInt(posRanura(i) + S_ESTADO) == OCUPADA) i = (i + 1) % capacidad;
+        int pos = posRanura(i);
+        if (indice.getInt(pos + S_ESTADO) == BORRADA) indice.putInt(H_BORRADAS, indice.getInt(H_BORRADAS) - 1);
+        indice.putInt(pos + S_ESTADO, OCUPADA);
+        indice.putInt(pos + S_TAMANO, tamano);
+        indice.putLong(pos + S_ACCESO, siguienteReloj());
+        for (int k = 0; k < TAM_LLAVE; k++) indice.put(pos + S_LLAVE + k, llave[k]);
+        indice.putInt(H_OCUPADAS, indice.getInt(H_OCUPADAS) + 1);
+        ajustarBytes(tamano);
+    }
+
+    /** Elimina las entradas menos usadas hasta quedar dentro de los límites (sin tocar 'protegida'). */
+    private void desalojar(byte[] protegida) throws IOException {
+        int limiteEntradas = capacidad * 3 / 4;
+        while (indice.getInt(H_OCUPADAS) > 1
+                && (indice.getInt(H_OCUPADAS) > limiteEntradas || indice.getLong(H_BYTES) > maxBytes)) {
+            int victima = -1;
+            long masAntiguo = Long.MAX_VALUE;
+            for (int i = 0; i < capacidad; i++) {
+                int pos = posRanura(i);
+                if (indice.getInt(pos + S_ESTADO) != OCUPADA || llaveIgual(i, protegida)) continue;
+                long acceso = indice.getLong(pos + S_ACCESO);
+                if (acceso < masAntiguo) {
+                    masAntiguo = acceso;
+                    victima = i;
+                }
+            }
+            if (victima < 0) return;
+
+            int pos = posRanura(victima);
+            byte[] llave = new byte[TAM_LLAVE];
+            for (int k = 0; k < TAM_LLAVE; k++) llave[k] = indice.get(pos + S_LLAVE + k);
+            Files.deleteIfExists(archivoEntrada(llave));
+            ajustarBytes(-indice.getInt(pos + S_TAMANO));
+            indice.putInt(pos + S_ESTADO, BORRADA);
+            indice.putInt(H_OCUPADAS, indice.getInt(H_OCUPADAS) - 1);
+            indice.putInt(H_BORRADAS, indice.getInt(H_BORRADAS) + 1);
+        }
+    }
+
+    /** Reconstruye el índice sin ranuras borradas. */
+    private void compactar() {
+        List<byte[]> ranuras = new ArrayList<>();
+        for (int i = 0; i < capacidad; i++) {
+            int pos = posRanura(i);
+            if (indice.getInt(pos + S_ESTADO) != OCUPADA) continue;
+            byte[] r = new byte[TAM_RANURA];
+            for (int k = 0; k < TAM_RANURA; k++) r[k] = indice.get(pos + k);
+            ranuras.add(r);
+        }
+        for (int i = TAM_CABECERA; i < indice.capacity(); i += 8) indice.putLong(i, 0L);
+        indice.putInt(H_BORRADAS, 0);
+        for (byte[] r : ranuras) {
+            int i = inicioSondeo(Arrays.copyOfRange(r, S_LLAVE, TAM_RANURA));
+            while (indice.getInt(posRanura(i) + S_ESTADO) != VACIA) i = (i + 1) % capacidad;
+            for (int k = 0; k < TAM_RANURA; k++) indice.put(posRanura(i) + k, r[k]);
+        }
+    }
+
+    private long siguienteReloj() {
+        long r = indice.getLong(H_RELOJ) + 1;
+        indice.putLong(H_RELOJ, r);
+        return r;
+    }
+
+    private void ajustarBytes(long delta) {
+        indice.putLong(H_BYTES, indice.getLong(H_BYTES) + delta);
+    }
+
+    // ===========================
+    // Llaves y archivos
+    // ===========================
+
+    private static byte[] llave(String codigo) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(Compilador.VERSION.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(codigo.getBytes(StandardCharsets.UTF_8));
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 siempre está disponible
+        }
+    }
+
+    private Path archivoEntrada(byte[] llave) {
+        return directorio.resolve(hex(llave) + ".mjc");
+    }
+
+    private static String hex(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for (byte x : b) sb.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+        return sb.toString();
+    }
+
+    // ===========================
+    // Formato de las entradas
+    // ===========================
+
+    /** magia, versión, llave, fase fallida, errores y luego tokens + símbolos en el formato de formato.EscritorBinario */
+    private static byte[] codificar(byte[] llave, ResultadoCompilacion r) {
+        BufferBinario out = new BufferBinario(64 + r.getTokens().size() * 3);
+        out.entero(MAGIA_ENTRADA);
+        out.varint(VERSION_FORMATO);
+        out.bytes(llave);
+        out.varint(r.getFaseFallida() == null ? 0 : r.getFaseFallida().ordinal() + 1);
+        out.texto(r.getErrores());
+        EscritorBinario.codificar(r.getTokens(), r.getTablaSimbolos(), out);
+        return out.toArray();
+    }
+
+    /** Devuelve null si el archivo no corresponde a la llave, tiene otra versión o está dañado
+     * (truncado o con valores fuera de rango). */
+    private static ResultadoCompilacion decodificar(byte[] datos, byte[] llave) {
+        try {
+            return leerEntrada(datos, llave);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    private static ResultadoCompilacion leerEntrada(byte[] datos, byte[] llave) {
+        ByteBuffer in = ByteBuffer.wrap(datos);
+        if (datos.length < 8 || in.getInt() != MAGIA_ENTRADA || BufferBinario.leerVarint(in) != VERSION_FORMATO) {
+            return null;
+        }
+        for (int k = 0; k < TAM_LLAVE; k++) {
+            if (in.get() != llave[k]) return null;
+        }
+        int fase = BufferBinario.leerVarint(in);
+        String errores = BufferBinario.leerTexto(in);
+
+        LectorBinario lector = new LectorBinario(in);
+        List<Token> tokens = new ArrayList<>(lector.getNumTokens());
+        for (int i = 0; i < lector.getNumTokens(); i++) tokens.add(lector.getToken(i));
+        return new ResultadoCompilacion(tokens, fase == 0 ? null : FASES[fase - 1], errores,
+                lector.getTablaSimbolos());
+    }
+}
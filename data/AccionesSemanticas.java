@@ -0,0 +1,25 @@
+package data;
+
+import java.util.List;
+
+/** Acciones que el Parser invoca al reconocer cada regla de la gramática.
+ * Los índices son posiciones en la lista de tokens, para ubicar los errores. */
+public interface AccionesSemanticas {
+
+    void registrarNombreClase(String nombre);
+
+    /** DeclaracionVar → TipoDato Identificador ; */
+    void declarar(String nombre, Semantico.Tipo tipo, int indice);
+
+    /** Identificador usado como término o como destino de una asignación. */
+    void usar(String nombre, int indice);
+
+    /** Identificador = Expresion ; */
+    void asignacionArit(String nombreVar, int indiceVar, List<Token> exprTokens);
+
+    /** Identificador = ExpresionBooleana ; */
+    void asignacionBool(String nombreVar, int indiceVar, List<Token> exprTokens);
+
+    /** ExpresionBooleana (condición de un while o lado derecho de una asignación booleana). */
+    void validarCondicionWhile(List<Token> exprTokens, int inicio);
+}
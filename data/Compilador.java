@@ -0,0 +1,15 @@
+package data;
+
+/** Ejecuta Léxico -> Parser -> Semántico en orden, deteniéndose en la primera fase
+ * que falle (el mismo flujo que siguen los botones de la interfaz). */
+public class Compilador {
+
+    /** Versión del compilador; forma parte de la llave de la caché de compilación. */
+    public static final String VERSION = "1.0";
+
+    private Compilador() { }
+
+    public static ResultadoCompilacion compilar(String codigo, Metricas metricas) {
+        return new SesionCompilacion(codigo).getResultado(metricas);
+    }
+}
@@ -0,0 +1,20 @@
+package data;
+
+/** Un error encontrado por alguna fase, ubicado en el token donde se detectó.
+ * La posición en el texto se obtiene con Scanner.getPosicion(indiceToken). */
+public class Diagnostico {
+
+    public final Metricas.Fase fase;
+    public final String mensaje;
+    public final int indiceToken;     // -1 si no se puede ubicar en un token
+
+    public Diagnostico(Metricas.Fase fase, String mensaje, int indiceToken) {
+        this.fase = fase;
+        this.mensaje = mensaje;
+        this.indiceToken = indiceToken;
+    }
+
+    public String toString() {
+        return mensaje;
+    }
+}
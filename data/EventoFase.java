@@ -0,0 +1,47 @@
+package data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Evento de JDK Flight Recorder emitido al terminar cada fase del compilador.
+ * Si no hay una grabación activa, commit() no hace nada. Las fases ni siquiera crean el evento
+ * mientras FlightRecorder no esté inicializado: cargar esta clase arranca JFR (unos 200 ms),
+ * que es la mayor parte del arranque del compilador por consola.
+ *   java -XX:StartFlightRecording=filename=compilacion.jfr ...
+ *   jfr print --events microjava.Fase compilacion.jfr
+ */
+@Name("microjava.Fase")
+@Label("Fase del compilador")
+@Category({"MicroJava", "Compilador"})
+@Description("Duración de una fase (léxico, sintáctico o semántico)")
+public class EventoFase extends Event {
+
+    @Label("Fase")
+    String fase;
+
+    @Label("Tokens")
+    @Description("Tokens producidos o recorridos por la fase")
+    long tokens;
+
+    @Label("Errores")
+    int errores;
+
+    static EventoFase iniciar() {
+        EventoFase e = new EventoFase();
+        e.begin();
+        return e;
+    }
+
+    void terminar(Metricas.Fase f, long tokens, int errores) {
+        end();
+        if (shouldCommit()) {
+            this.fase = Metricas.nombre(f);
+            this.tokens = tokens;
+            this.errores = errores;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package data;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** Métricas de una compilación: tiempo y bytes asignados por fase, y contadores.
+ * Se activan pasando una instancia a Scanner, Parser y Semantico; si no se pasa
+ * ninguna (null) las fases solo hacen una comparación contra null y no miden nada.
+ * Los tiempos son exclusivos: si una fase corre dentro de otra (el Parser que dirige
+ * a Semantico), su tiempo se descuenta de la fase que la contiene.
+ * No es thread-safe: se usa una instancia por compilación.
+ */
+public class Metricas {
+
+    public enum Fase { LEXICO, SINTACTICO, SEMANTICO }
+
+    private static final int NUM_FASES = Fase.values().length;
+    private static final int MAX_ANIDAMIENTO = 8;
+
+    private final long[] nanos = new long[NUM_FASES];
+    private final long[] bytes = new long[NUM_FASES];
+    private final int[] ejecuciones = new int[NUM_FASES];
+    private final int[] errores = new int[NUM_FASES];
+
+    private long tokens;
+    private long retrocesos;
+    private long busquedas;
+
+    // Pila de fases en curso, para descontar el tiempo de las fases anidadas
+    private final Fase[] pila = new Fase[MAX_ANIDAMIENTO];
+    private final long[] inicioNanos = new long[MAX_ANIDAMIENTO];
+    private final long[] inicioBytes = new long[MAX_ANIDAMIENTO];
+    private final long[] hijosNanos = new long[MAX_ANIDAMIENTO];
+    private final long[] hijosBytes = new long[MAX_ANIDAMIENTO];
+    private int nivel = 0;
+
+    public void iniciar(Fase fase) {
+        if (nivel == MAX_ANIDAMIENTO) throw new IllegalStateException("Demasiadas fases anidadas");
+        pila[nivel] = fase;
+        hijosNanos[nivel] = 0;
+        hijosBytes[nivel] = 0;
+        inicioBytes[nivel] = bytesAsignados();
+        inicioNanos[nivel] = System.nanoTime();
+        nivel++;
+    }
+
+    public void terminar(Fase fase) {
+        long fin = System.nanoTime();
+        long finBytes = bytesAsignados();
+        if (nivel == 0 || pila[nivel - 1] != fase) throw new IllegalStateException("Fase no iniciada: " + fase);
+        nivel--;
+        long dt = fin - inicioNanos[nivel];
+        long db = (finBytes >= 0 && inicioBytes[nivel] >= 0) ? finBytes - inicioBytes[nivel] : 0;
+        nanos[fase.ordinal()] += dt - hijosNanos[nivel];
+        bytes[fase.ordinal()] += db - hijosBytes[nivel];
+        ejecuciones[fase.ordinal()]++;
+        if (nivel > 0) {
+            hijosNanos[nivel - 1] += dt;
+            hijosBytes[nivel - 1] += db;
+        }
+    }
+
+    // Contadores que incrementan las fases
+    public void contarTokens(long n)            { tokens += n; }
+    public void contarRetroceso()               { retrocesos++; }
+    public void contarBusqueda()                { busquedas++; }
+    public void contarErrores(Fase fase, int n) { errores[fase.ordinal()] += n; }
+
+    public long getNanos(Fase fase)       { return nanos[fase.ordinal()]; }
+    public long getBytes(Fase fase)       { return bytes[fase.ordinal()]; }
+    public int getEjecuciones(Fase fase)  { return ejecuciones[fase.ordinal()]; }
+    public int getErrores(Fase fase)      { return errores[fase.ordinal()]; }
+    public long getTokens()               { return tokens; }
+    public long getRetrocesos()           { return retrocesos; }
+    public long getBusquedas()            { return busquedas; }
+
+    public long getNanosTotal() {
+        long total = 0;
+        for (long n : nanos) total += n;
+        return total;
+    }
+
+    public int getErroresTotal() {
+        int total = 0;
+        for (int e : errores) total += e;
+        return total;
+    }
+
+    /** Resumen en una sola línea, para la barra de estado de la interfaz. */
+    public String resumenCorto() {
+        StringBuilder sb = new StringBuilder();
+        for (Fase f : Fase.values()) {
+            if (ejecuciones[f.ordinal()] == 0) continue;
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(nombre(f)).append(' ').append(milis(nanos[f.ordinal()])).append(" ms");
+        }
+        if (sb.length() > 0) sb.append(" | ");
+        sb.append(tokens).append(" tokens, ")
+          .append(retrocesos).append(" retrocesos, ")
+          .append(busquedas).append(" búsquedas, ")
+          .append(getErroresTotal()).append(" errores");
+        return sb.toString();
+    }
+
+    /** Tabla de varias líneas, para la consola. */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-13s %12s %14s %8s%n", "Fase", "Tiempo (ms)", "Asignado (KB)", "Errores"));
+        for (Fase f : Fase.values()) {
+            int i = f.ordinal();
+            if (ejecuciones[i] == 0) continue;
+            sb.append(String.format("%-13s %12s %14d %8d%n", nombre(f), milis(nanos[i]), bytes[i] / 1024, errores[i]));
+        }
+        sb.append("Tokens: ").append(tokens)
+          .append("  Retrocesos: ").append(retrocesos)
+          .append("  Búsquedas en tabla: ").append(busquedas);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() { return resumenCorto(); }
+
+    static String nombre(Fase f) {
+        switch (f) {
+            case LEXICO: return "Léxico";
+            case SINTACTICO: return "Sintáctico";
+            case SEMANTICO: return "Semántico";
+            default: return f.name();
+        }
+    }
+
+    private static String milis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    // Bytes asignados por el hilo actual (-1 si la JVM no lo soporta)
+    private static long bytesAsignados() {
+        com.sun.management.ThreadMXBean mx = Asignacion.MX;
+        return (mx != null) ? mx.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /** Se carga solo cuando se usan métricas. */
+    private static class Asignacion {
+        static final com.sun.management.ThreadMXBean MX = crear();
+
+        private static com.sun.management.ThreadMXBean crear() {
+            ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+            if (mx instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) mx;
+                if (sun.isThreadAllocatedMemorySupported()) {
+                    sun.setThreadAllocatedMemoryEnabled(true);
+                    return sun;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -2,10 +2,15 @@ package data;
 
 import java.util.List;
 
+import jdk.jfr.FlightRecorder;
+
+/** Analizador sintáctico descendente con retroceso.
+ * No guarda estado entre análisis: cada llamada a analizar() usa su propia Ejecucion,
+ * así que la misma instancia (y la misma lista de tokens) se puede analizar desde varios
+ * hilos a la vez.
+ */
 public class Parser {
-    private List<Token> listaTokens;
-    private int posicionActual = 0;
-    private StringBuilder mensajesError = new StringBuilder();
+    private final List<Token> listaTokens;
 
     public static final int C_CLASS = 1;
     public static final int C_BOOLEAN = 2;
@@ -30,37 +35,31 @@ public class Parser {
 
     public Parser(List<Token> tokens) { this.listaTokens = tokens; }
 
-    public void asignarCodigos() {
-        for (Token token : listaTokens) {
-            switch (token.tipo) {
-                case PalabraReservada: token.codigo = codigoReservada(token.valor); break;
-                case Identificador:
-                    int cod = codigoReservada(token.valor); 
-                    if (cod != 0) {
-                        token.codigo = cod;
-                    } else {
-                        token.codigo = C_IDENTIFICADOR;
-                    }
-                    break;
-                case NumEntero: token.codigo = C_NUMENTERO; break;
-                case PuntoComa: token.codigo = C_PUNTOCOMA; break;
-                case LlaveAbre: token.codigo = C_LLAVEABRE; break;
-                case LlaveCierra: token.codigo = C_LLAVECIERRA; break;
-                case ParentAbre: token.codigo = C_PARENTABRE; break;
-                case ParentCierra: token.codigo = C_PARENTCIERRA; break;
-                case OpMAS: token.codigo = C_OPMAS; break;
-                case OpMENOS: token.codigo = C_OPMENOS; break;
-                case OpMULTI: token.codigo = C_OPMULTI; break;
-                case CMPMAY: token.codigo = C_CMPMAY; break;
-                case CMPMEN: token.codigo = C_CMPMEN; break;
-                case Asignacion: token.codigo = C_ASIGNACION; break;
-                case EOF: token.codigo = C_EOF; break;
-                default: token.codigo = 0; break;
-            }
+    /** Código numérico de un token según su tipo y lexema (0 si no corresponde a ninguno). */
+    public static int codigoDe(Token.TokenTipo tipo, String valor) {
+        switch (tipo) {
+            case PalabraReservada: return codigoReservada(valor);
+            case Identificador:
+                int cod = codigoReservada(valor); 
+                return (cod != 0) ? cod : C_IDENTIFICADOR;
+            case NumEntero: return C_NUMENTERO;
+            case PuntoComa: return C_PUNTOCOMA;
+            case LlaveAbre: return C_LLAVEABRE;
+            case LlaveCierra: return C_LLAVECIERRA;
+            case ParentAbre: return C_PARENTABRE;
+            case ParentCierra: return C_PARENTCIERRA;
+            case OpMAS: return C_OPMAS;
+            case OpMENOS: return C_OPMENOS;
+            case OpMULTI: return C_OPMULTI;
+            case CMPMAY: return C_CMPMAY;
+            case CMPMEN: return C_CMPMEN;
+            case Asignacion: return C_ASIGNACION;
+            case EOF: return C_EOF;
+            default: return 0;
         }
     }
 
-    private int codigoReservada(String lexema) {
+    private static int codigoReservada(String lexema) {
         switch (lexema) {
             case "class": return C_CLASS;
             case "boolean": return C_BOOLEAN;
@@ -73,234 +72,307 @@ public class Parser {
         }
     }
 
-    public boolean analizar(Semantico sem) {
-        asignarCodigos();
-        this.posicionActual = 0;
-        this.mensajesError = new StringBuilder();
-        return parsearPrograma(sem);
+    /** Resultado de un análisis sintáctico. */
+    public static class Resultado {
+        private final boolean exito;
+        private final String errores;
+        private final Diagnostico diagnostico;
+
+        Resultado(boolean exito, String errores, Diagnostico diagnostico) {
+            this.exito = exito;
+            this.errores = errores;
+            this.diagnostico = diagnostico;
+        }
+
+        public boolean esCorrecto()          { return exito; }
+        public String getErrores()           { return errores; }
+        /** Error sintáctico ubicado en un token (null si el análisis fue correcto). */
+        public Diagnostico getDiagnostico()  { return diagnostico; }
     }
 
-    /** Programa → class Identificador { ListaDeclaración ListaSentencias } EOF */
-    public boolean parsearPrograma(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_CLASS)) {
-            posicionActual++;
-            if (tokenActualEs(C_IDENTIFICADOR)) {
-                String nombre = listaTokens.get(posicionActual).valor;
-                if (sem != null) sem.registrarNombreClase(nombre);
+    /** Solo valida la sintaxis. */
+    public Resultado analizar() {
+        return analizar(null, null);
+    }
+
+    /** Valida la sintaxis invocando las acciones semánticas (puede ser null) al reconocer cada regla,
+     * y registra tiempo y retrocesos en 'metricas' (puede ser null). */
+    public Resultado analizar(AccionesSemanticas sem, Metricas metricas) {
+        EventoFase evento = FlightRecorder.isInitialized() ? EventoFase.iniciar() : null;
+        if (metricas != null) metricas.iniciar(Metricas.Fase.SINTACTICO);
+        Ejecucion ej = new Ejecucion(listaTokens, sem, metricas);
+        boolean exito = ej.parsearPrograma();
+        if (!exito) ej.registrarErrorSintactico();
+        if (metricas != null) {
+            metricas.terminar(Metricas.Fase.SINTACTICO);
+            if (!exito) metricas.contarErrores(Metricas.Fase.SINTACTICO, 1);
+        }
+        if (evento != null) evento.terminar(Metricas.Fase.SINTACTICO, listaTokens.size(), exito ? 0 : 1);
+        return new Resultado(exito, ej.mensajesError.toString(), ej.diagnostico);
+    }
+
+    public List<Token> getTokens() { return listaTokens; }
+
+    /** Estado de un solo análisis: posición actual, errores y a quién avisar. */
+    private static final class Ejecucion {
+        private final List<Token> listaTokens;
+        private final AccionesSemanticas sem;
+        private final Metricas metricas;
+        private int posicionActual = 0;
+        private int posicionMaxima = 0;          // token más lejano que se llegó a revisar
+        private final StringBuilder mensajesError = new StringBuilder();
+        private Diagnostico diagnostico;
+
+        Ejecucion(List<Token> tokens, AccionesSemanticas sem, Metricas metricas) {
+            this.listaTokens = tokens;
+            this.sem = sem;
+            this.metricas = metricas;
+        }
+
+        /** Programa → class Identificador { ListaDeclaración ListaSentencias } EOF */
+        boolean parsearPrograma() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_CLASS)) {
                 posicionActual++;
-                if (tokenActualEs(C_LLAVEABRE)) {
+                if (tokenActualEs(C_IDENTIFICADOR)) {
+                    String nombre = listaTokens.get(posicionActual).valor;
+                    if (sem != null) sem.registrarNombreClase(nombre);
                     posicionActual++;
-                    if (parsearListaDeclaracion(sem)) {
-                        if (parsearListaSentencias(sem)) {
-                            if (tokenActualEs(C_LLAVECIERRA)) {
-                                posicionActual++;
-                                if (tokenActualEs(C_EOF)) {
+                    if (tokenActualEs(C_LLAVEABRE)) {
+                        posicionActual++;
+                        if (parsearListaDeclaracion()) {
+                            if (parsearListaSentencias()) {
+                                if (tokenActualEs(C_LLAVECIERRA)) {
                                     posicionActual++;
-                                    return true;
-                                } else {
-                                    mensajesError.append("Error sintáctico: se esperaba EOF al final del programa.");
+                                    if (tokenActualEs(C_EOF)) {
+                                        posicionActual++;
+                                        return true;
+                                    } else {
+                                        mensajesError.append("Error sintáctico: se esperaba EOF al final del programa.");
+                                        diagnostico = new Diagnostico(Metricas.Fase.SINTACTICO, mensajesError.toString(), posicionActual);
+                                    }
                                 }
                             }
                         }
                     }
                 }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
 
-    /** ListaDeclaracion → [[DeclaracionVar;]]* */
-    public boolean parsearListaDeclaracion(Semantico sem) {
-        boolean encontrado = false;
-        while (parsearDeclaracionVar(sem)) encontrado = true;
-        if (!encontrado) return true;
-        return true;
-    }
+        /** ListaDeclaracion → [[DeclaracionVar;]]* */
+        boolean parsearListaDeclaracion() {
+            boolean encontrado = false;
+            while (parsearDeclaracionVar()) encontrado = true;
+            if (!encontrado) return true;
+            return true;
+        }
 
-    /** DeclaracionVar → TipoDato Identificador ; */
-    public boolean parsearDeclaracionVar(Semantico sem) {
-        int inicio = posicionActual;
-        if (parsearTipoDato()) {
-            String tipo = tokenActualEs(C_INT) ? "int" : "boolean";
-            posicionActual++;
-            if (tokenActualEs(C_IDENTIFICADOR)) {
-                String nombre = listaTokens.get(posicionActual).valor;
-                if (sem != null){ sem.declarar(nombre, tipo);} // Semántico: redeclaración + tabla
+        /** DeclaracionVar → TipoDato Identificador ; */
+        boolean parsearDeclaracionVar() {
+            int inicio = posicionActual;
+            if (parsearTipoDato()) {
+                Semantico.Tipo tipo = tokenActualEs(C_INT) ? Semantico.Tipo.INT : Semantico.Tipo.BOOLEAN;
                 posicionActual++;
-                if (tokenActualEs(C_PUNTOCOMA)) {
+                if (tokenActualEs(C_IDENTIFICADOR)) {
+                    String nombre = listaTokens.get(posicionActual).valor;
+                    if (sem != null){ sem.declarar(nombre, tipo, posicionActual);} // Semántico: redeclaración + tabla
                     posicionActual++;
-                    return true;
+                    if (tokenActualEs(C_PUNTOCOMA)) {
+                        posicionActual++;
+                        return true;
+                    }
                 }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
 
-    /** TipoDato → boolean | int */
-    public boolean parsearTipoDato() { return tokenActualEs(C_INT) || tokenActualEs(C_BOOLEAN); }
+        /** TipoDato → boolean | int */
+        boolean parsearTipoDato() { return tokenActualEs(C_INT) || tokenActualEs(C_BOOLEAN); }
 
-    /** ListaSentencias → [[Sentencias]]* */
-    public boolean parsearListaSentencias(Semantico sem) {
-        boolean encontrado = false;
-        while (parsearSentencias(sem)) encontrado = true;
-        if (!encontrado) return true;
-        return true;
-    }
+        /** ListaSentencias → [[Sentencias]]* */
+        boolean parsearListaSentencias() {
+            boolean encontrado = false;
+            while (parsearSentencias()) encontrado = true;
+            if (!encontrado) return true;
+            return true;
+        }
 
-    /** Sentencias → while (ExpresionBooleana){ListaSentencias} | Identificador=Expresion; | Identificador=ExpresionBooleana; */
-    public boolean parsearSentencias(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_WHILE)) { if (parsearWhile(sem)) return true; }
-        posicionActual = inicio;
-        if (tokenActualEs(C_IDENTIFICADOR)) { if (parsearAsignacion(sem) || parsearAsignacionBooleana(sem)) return true; }
-        posicionActual = inicio;
-        return false;
-    }
+        /** Sentencias → while (ExpresionBooleana){ListaSentencias} | Identificador=Expresion; | Identificador=ExpresionBooleana; */
+        boolean parsearSentencias() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_WHILE)) { if (parsearWhile()) return true; }
+            retroceder(inicio);
+            if (tokenActualEs(C_IDENTIFICADOR)) { if (parsearAsignacion() || parsearAsignacionBooleana()) return true; }
+            retroceder(inicio);
+            return false;
+        }
 
-    /** while ( ExpresionBooleana ) { ListaSentencias } */
-    public boolean parsearWhile(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_WHILE)) {
-            posicionActual++;
-            if (tokenActualEs(C_PARENTABRE)) {
+        /** while ( ExpresionBooleana ) { ListaSentencias } */
+        boolean parsearWhile() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_WHILE)) {
                 posicionActual++;
-                if (parsearExpresionBooleana(sem)) {
-                    if (tokenActualEs(C_PARENTCIERRA)) {
-                        posicionActual++;
-                        if (tokenActualEs(C_LLAVEABRE)) {
+                if (tokenActualEs(C_PARENTABRE)) {
+                    posicionActual++;
+                    if (parsearExpresionBooleana()) {
+                        if (tokenActualEs(C_PARENTCIERRA)) {
                             posicionActual++;
-                            if (parsearListaSentencias(sem)) {
-                                if (tokenActualEs(C_LLAVECIERRA)) {
-                                    posicionActual++;
-                                    return true;
+                            if (tokenActualEs(C_LLAVEABRE)) {
+                                posicionActual++;
+                                if (parsearListaSentencias()) {
+                                    if (tokenActualEs(C_LLAVECIERRA)) {
+                                        posicionActual++;
+                                        return true;
+                                    }
                                 }
                             }
                         }
                     }
                 }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
     
-    /** Identificador = Expresion ; */
-    public boolean parsearAsignacion(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_IDENTIFICADOR)) {
-            String nombreVar = listaTokens.get(posicionActual).valor;
-            if (sem != null) sem.usar(nombreVar);
-            posicionActual++;
-            if (tokenActualEs(C_ASIGNACION)) {
+        /** Identificador = Expresion ; */
+        boolean parsearAsignacion() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_IDENTIFICADOR)) {
+                String nombreVar = listaTokens.get(posicionActual).valor;
+                int indiceVar = posicionActual;
+                if (sem != null) sem.usar(nombreVar, indiceVar);
                 posicionActual++;
-                int iniExpr = posicionActual;
-                if (parsearExpresion(sem)) {
-                    int finExpr = posicionActual;
-                    if (tokenActualEs(C_PUNTOCOMA)) {
-                        if (sem != null) sem.asignacionArit(nombreVar, listaTokens.subList(iniExpr, finExpr));
-                        posicionActual++;
-                        return true;
+                if (tokenActualEs(C_ASIGNACION)) {
+                    posicionActual++;
+                    int iniExpr = posicionActual;
+                    if (parsearExpresion()) {
+                        int finExpr = posicionActual;
+                        if (tokenActualEs(C_PUNTOCOMA)) {
+                            if (sem != null) sem.asignacionArit(nombreVar, indiceVar, listaTokens.subList(iniExpr, finExpr));
+                            posicionActual++;
+                            return true;
+                        }
                     }
                 }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
 
-    /** Identificador = ExpresionBooleana ; */
-    public boolean parsearAsignacionBooleana(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_IDENTIFICADOR)) {
-            String nombreVar = listaTokens.get(posicionActual).valor;
-            if (sem != null) sem.usar(nombreVar);
-            posicionActual++;
-            if (tokenActualEs(C_ASIGNACION)) {
+        /** Identificador = ExpresionBooleana ; */
+        boolean parsearAsignacionBooleana() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_IDENTIFICADOR)) {
+                String nombreVar = listaTokens.get(posicionActual).valor;
+                int indiceVar = posicionActual;
+                if (sem != null) sem.usar(nombreVar, indiceVar);
                 posicionActual++;
-                int iniExpr = posicionActual;
-                if (parsearExpresionBooleana(sem)) {
-                    int finExpr = posicionActual;
-                    if (tokenActualEs(C_PUNTOCOMA)) {
-                        if (sem != null) sem.asignacionBool(nombreVar,listaTokens.subList(iniExpr, finExpr));
-                        posicionActual++;
-                        return true;
+                if (tokenActualEs(C_ASIGNACION)) {
+                    posicionActual++;
+                    int iniExpr = posicionActual;
+                    if (parsearExpresionBooleana()) {
+                        int finExpr = posicionActual;
+                        if (tokenActualEs(C_PUNTOCOMA)) {
+                            if (sem != null) sem.asignacionBool(nombreVar, indiceVar, listaTokens.subList(iniExpr, finExpr));
+                            posicionActual++;
+                            return true;
+                        }
                     }
                 }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
 
-    /** ExpresionBooleana → Expresion CMP Expresion | true | false */
-    public boolean parsearExpresionBooleana(Semantico sem) {
-        int inicio = posicionActual;
-        if (tokenActualEs(C_TRUE) || tokenActualEs(C_FALSE)) { 
-            if (sem != null) {
-            // Mandamos solo el token true/false para validar
-            sem.validarCondicionWhile(listaTokens.subList(posicionActual, posicionActual + 1));
-            }   
-            posicionActual++; 
-            return true; 
-        }
-        if (parsearExpresion(sem)) {
-            if (parsearComparador()) {
-                posicionActual++;
-                if (parsearExpresion(sem))
-                    if (sem != null) {
-                    // Enviamos todos los tokens desde 'inicio' hasta 'posicionActual'
-                    sem.validarCondicionWhile(listaTokens.subList(inicio, posicionActual));
-                    }
-                	return true;
+        /** ExpresionBooleana → Expresion CMP Expresion | true | false */
+        boolean parsearExpresionBooleana() {
+            int inicio = posicionActual;
+            if (tokenActualEs(C_TRUE) || tokenActualEs(C_FALSE)) { 
+                if (sem != null) {
+                // Mandamos solo el token true/false para validar
+                sem.validarCondicionWhile(listaTokens.subList(posicionActual, posicionActual + 1), posicionActual);
+                }   
+                posicionActual++; 
+                return true; 
+            }
+            if (parsearExpresion()) {
+                if (parsearComparador()) {
+                    posicionActual++;
+                    if (parsearExpresion())
+                        if (sem != null) {
+                        // Enviamos todos los tokens desde 'inicio' hasta 'posicionActual'
+                        sem.validarCondicionWhile(listaTokens.subList(inicio, posicionActual), inicio);
+                        }
+                    	return true;
+                }
             }
+            retroceder(inicio);
+            return false;
         }
-        posicionActual = inicio;
-        return false;
-    }
 
-    /** Expresion → Termino OP Termino */
-    public boolean parsearExpresion(Semantico sem) {
-        int inicio=posicionActual;
-        if (parsearTermino(sem)) {
-            posicionActual++;
-            while (posicionActual < listaTokens.size() && parsearOperador()) {
+        /** Expresion → Termino OP Termino */
+        boolean parsearExpresion() {
+            int inicio=posicionActual;
+            if (parsearTermino()) {
                 posicionActual++;
-                if (parsearTermino(sem)) {
+                while (posicionActual < listaTokens.size() && parsearOperador()) {
                     posicionActual++;
-                } else {
-                    posicionActual=inicio;
-                    return false;   
+                    if (parsearTermino()) {
+                        posicionActual++;
+                    } else {
+                        retroceder(inicio);
+                        return false;   
+                    }
                 }
+                return true;
             }
-            return true;
+            retroceder(inicio);
+            return false;
         }
-        posicionActual=inicio;
-        return false;
-    }
 
-    /** Expresion → Identificador | NumEntero */
-    public boolean parsearTermino(Semantico sem) { 
-        if (tokenActualEs(C_IDENTIFICADOR)){
-            if (sem != null) sem.usar(listaTokens.get(posicionActual).valor); // Uso de variable dentro de semantico sirve para detectar variables no declaradas
-            return true;
-        }   
-        return tokenActualEs(C_NUMENTERO); 
-    }
+        /** Expresion → Identificador | NumEntero */
+        boolean parsearTermino() { 
+            if (tokenActualEs(C_IDENTIFICADOR)){
+                if (sem != null) sem.usar(listaTokens.get(posicionActual).valor, posicionActual); // Uso de variable dentro de semantico sirve para detectar variables no declaradas
+                return true;
+            }   
+            return tokenActualEs(C_NUMENTERO); 
+        }
 
-    /** OP → + | - | * */
-    public boolean parsearOperador() { return tokenActualEs(C_OPMAS) || tokenActualEs(C_OPMENOS) || tokenActualEs(C_OPMULTI); }
+        /** OP → + | - | * */
+        boolean parsearOperador() { return tokenActualEs(C_OPMAS) || tokenActualEs(C_OPMENOS) || tokenActualEs(C_OPMULTI); }
 
-    /** CMP → > | < */
-    public boolean parsearComparador() { return tokenActualEs(C_CMPMAY) || tokenActualEs(C_CMPMEN); }
+        /** CMP → > | < */
+        boolean parsearComparador() { return tokenActualEs(C_CMPMAY) || tokenActualEs(C_CMPMEN); }
 
-    private boolean tokenActualEs(int codigoEsperado) {
-        if (posicionActual < listaTokens.size()) return listaTokens.get(posicionActual).codigo == codigoEsperado;
-        return false;
-    }
+        // Vuelve a 'inicio' tras una alternativa fallida (backtracking)
+        private void retroceder(int inicio) {
+            if (metricas != null && posicionActual != inicio) metricas.contarRetroceso();
+            posicionActual = inicio;
+        }
 
-    public String getErrores() { return mensajesError.toString(); }
-    public List<Token> getTokens() { return listaTokens; }
-}
\ No newline at end of file
+        private boolean tokenActualEs(int codigoEsperado) {
+            if (posicionActual > posicionMaxima) posicionMaxima = posicionActual;
+            if (posicionActual < listaTokens.size()) return listaTokens.get(posicionActual).codigo == codigoEsperado;
+            return false;
+        }
+
+        // Ubica el error en el token más lejano que se revisó (ahí falló la última alternativa)
+        private void registrarErrorSintactico() {
+            if (diagnostico != null) return;
+            String msg;
+            int indice = posicionMaxima;
+            if (indice >= listaTokens.size()) {
+                msg = "Error sintáctico: fin inesperado del programa.";
+                indice = listaTokens.size() - 1;
+            } else {
+                msg = "Error sintáctico: token inesperado '" + listaTokens.get(indice).valor + "'.";
+            }
+            if (mensajesError.length() == 0) mensajesError.append(msg);
+            diagnostico = new Diagnostico(Metricas.Fase.SINTACTICO, msg, indice);
+        }
+    }
+}
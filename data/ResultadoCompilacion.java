@@ -0,0 +1,27 @@
+package data;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Resultado completo de compilar un programa: tokens, veredicto, errores y tabla de símbolos. */
+public class ResultadoCompilacion {
+
+    private final List<Token> tokens;
+    private final Metricas.Fase faseFallida;   // null si las tres fases fueron correctas
+    private final String errores;
+    private final List<Semantico.Simbolo> tablaSimbolos;
+
+    public ResultadoCompilacion(List<Token> tokens, Metricas.Fase faseFallida, String errores,
+                                List<Semantico.Simbolo> tablaSimbolos) {
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.faseFallida = faseFallida;
+        this.errores = (errores != null) ? errores : "";
+        this.tablaSimbolos = Collections.unmodifiableList(tablaSimbolos);
+    }
+
+    public List<Token> getTokens()                      { return tokens; }
+    public Metricas.Fase getFaseFallida()               { return faseFallida; }
+    public String getErrores()                          { return errores; }
+    public List<Semantico.Simbolo> getTablaSimbolos()   { return tablaSimbolos; }
+    public boolean esCorrecto()                         { return faseFallida == null; }
+}
@@ -1,10 +1,17 @@
 package data;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import jdk.jfr.FlightRecorder;
+
 public class Scanner {
     private final List<Token> listaTokens = new ArrayList<>();
+    private int[] posiciones = new int[16];      // índice de carácter donde empieza cada token
     private int indiceActual = 0;
     private String codigoFuente, mensajeError;
     private boolean hayError;
@@ -14,15 +21,50 @@ public class Scanner {
         "class", "boolean", "int", "while", "true", "false", "EOF"
     };
 
+    /** Recibe cada token junto con la posición donde empieza; devuelve false para detener el análisis. */
+    public interface Receptor {
+        boolean recibir(Token token, int posicion);
+    }
+
+    /** Como Receptor, para textos que se leen por partes y pueden pasar de 2^31 caracteres. */
+    public interface ReceptorFlujo {
+        boolean recibir(Token token, long posicion);
+    }
+
+    private static final int TAM_BLOQUE = 64 * 1024;
+
     public Scanner(String codigo) {
+        this(codigo, null);
+    }
+
+    /** Igual que Scanner(codigo), registrando tiempo y tokens en 'metricas' (puede ser null). */
+    public Scanner(String codigo, Metricas metricas) {
         hayError = false;
         codigoFuente = (codigo != null) ? codigo : "";
-        analizar();
+
+        EventoFase evento = FlightRecorder.isInitialized() ? EventoFase.iniciar() : null;
+        if (metricas != null) metricas.iniciar(Metricas.Fase.LEXICO);
+        int[] invalidos = new int[1];
+        analizar(codigoFuente, 0, (t, posicion) -> {
+            int i = listaTokens.size();
+            if (i == posiciones.length) posiciones = Arrays.copyOf(posiciones, i * 2);
+            posiciones[i] = posicion;
+            listaTokens.add(t);
+            if (t.tipo == Token.TokenTipo.Invalido) invalidos[0]++;
+            return true;
+        });
+        if (metricas != null) {
+            metricas.terminar(Metricas.Fase.LEXICO);
+            metricas.contarTokens(listaTokens.size());
+            metricas.contarErrores(Metricas.Fase.LEXICO, invalidos[0]);
+        }
+        if (evento != null) evento.terminar(Metricas.Fase.LEXICO, listaTokens.size(), invalidos[0]);
     }
 
-    // Recorre el texto y hace la lista de tokens
-    private void analizar() {
-        int posicion = 0, longitud = codigoFuente.length(); // Posición actual y longitud total del código fuente
+    /** Recorre el texto desde 'desde' y entrega cada token al receptor.
+     * Permite volver a tokenizar solo una parte del código (por ejemplo, después de una edición). */
+    public static void analizar(String codigoFuente, int desde, Receptor receptor) {
+        int posicion = desde, longitud = codigoFuente.length(); // Posición actual y longitud total del código fuente
 
         while (posicion < longitud) {
             char caracter = codigoFuente.charAt(posicion);
@@ -40,11 +82,10 @@ public class Scanner {
                 String palabra = codigoFuente.substring(posicion, j);
 
                 Token.TokenTipo tipoReservada = obtenerTipoReservada(palabra);
-                if (tipoReservada != Token.TokenTipo.Invalido) {
-                    listaTokens.add(new Token(tipoReservada, palabra));
-                } else {
-                    listaTokens.add(new Token(Token.TokenTipo.Identificador, palabra));
-                }
+                Token t = (tipoReservada != Token.TokenTipo.Invalido)
+                        ? new Token(tipoReservada, palabra)
+                        : new Token(Token.TokenTipo.Identificador, palabra);
+                if (!receptor.recibir(t, posicion)) return;
                 posicion = j;
                 continue;
             }
@@ -57,27 +98,61 @@ public class Scanner {
                 }
 
                 String palabra = codigoFuente.substring(posicion, j);
-                listaTokens.add(new Token(Token.TokenTipo.NumEntero, palabra));
+                if (!receptor.recibir(new Token(Token.TokenTipo.NumEntero, palabra), posicion)) return;
                 posicion = j;
                 continue;
             }
 
             // 4) Procesar simbolos individuales: + - * < > = ; { } ( ) 
-            if (procesarSimbolos(caracter)) { 
-                posicion++; 
-                continue;
-            }
-
             // 5) Símbolo desconocido: marcar el caracter invalido
-            if (!Character.isWhitespace(caracter)) {
-                listaTokens.add(new Token(Token.TokenTipo.Invalido, String.valueOf(caracter)));
-            }
+            Token simbolo = procesarSimbolos(caracter);
+            if (simbolo == null) simbolo = new Token(Token.TokenTipo.Invalido, String.valueOf(caracter));
+            if (!receptor.recibir(simbolo, posicion)) return;
             posicion++;
         }
     }
 
+    /** Tokeniza un texto que se lee por partes, sin tenerlo completo en memoria.
+     * Ningún token contiene espacios, así que cada bloque se corta en su último espacio en blanco
+     * y el resto pasa al siguiente; solo un lexema sin espacios más grande que el bloque lo hace crecer.
+     * Devuelve el número de caracteres leídos. */
+    public static long analizar(Reader entrada, ReceptorFlujo receptor) throws IOException {
+        char[] buffer = new char[TAM_BLOQUE];
+        int lleno = 0;
+        long base = 0;      // posición en el texto del primer carácter del buffer
+        boolean[] detenido = new boolean[1];
+        while (true) {
+            int leidos = entrada.read(buffer, lleno, buffer.length - lleno);
+            boolean fin = leidos < 0;
+            if (!fin) lleno += leidos;
+
+            int corte = lleno;
+            if (!fin) {
+                while (corte > 0 && !Character.isWhitespace(buffer[corte - 1])) corte--;
+                if (corte == 0) {
+                    // Un solo lexema llena el bloque: se agranda y se sigue leyendo
+                    if (lleno == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+            }
+
+            long desplazamiento = base;
+            analizar(new String(buffer, 0, corte), 0, (t, p) -> {
+                if (receptor.recibir(t, desplazamiento + p)) return true;
+                detenido[0] = true;
+                return false;
+            });
+            if (detenido[0]) return base + corte;
+
+            System.arraycopy(buffer, corte, buffer, 0, lleno - corte);
+            lleno -= corte;
+            base += corte;
+            if (fin) return base;
+        }
+    }
+
     // Si el lexema está en la lista, es PalabraReservada; sino Invalido
-    private Token.TokenTipo obtenerTipoReservada(String lexema) {
+    private static Token.TokenTipo obtenerTipoReservada(String lexema) {
         for (int i = 0; i < PALABRAS_RESERVADAS.length; i++) {
             if (PALABRAS_RESERVADAS[i].equals(lexema))
                 return Token.TokenTipo.PalabraReservada;
@@ -88,20 +163,20 @@ public class Scanner {
     // OP: + - *
     // CMP: < > =
     // Otros símbolos: ; { } ( )
-    private boolean procesarSimbolos(char c) {
+    private static Token procesarSimbolos(char c) {
         switch (c) {
-            case '+': listaTokens.add(new Token(Token.TokenTipo.OpMAS, "+"));        return true;
-            case '-': listaTokens.add(new Token(Token.TokenTipo.OpMENOS, "-"));      return true;
-            case '*': listaTokens.add(new Token(Token.TokenTipo.OpMULTI, "*"));      return true;
-            case '<': listaTokens.add(new Token(Token.TokenTipo.CMPMEN, "<"));       return true;
-            case '>': listaTokens.add(new Token(Token.TokenTipo.CMPMAY, ">"));       return true;
-            case '=': listaTokens.add(new Token(Token.TokenTipo.Asignacion, "="));   return true; 
-            case ';': listaTokens.add(new Token(Token.TokenTipo.PuntoComa, ";"));    return true;
-            case '{': listaTokens.add(new Token(Token.TokenTipo.LlaveAbre, "{"));    return true;
-            case '}': listaTokens.add(new Token(Token.TokenTipo.LlaveCierra, "}"));  return true;
-            case '(': listaTokens.add(new Token(Token.TokenTipo.ParentAbre, "("));   return true;
-            case ')': listaTokens.add(new Token(Token.TokenTipo.ParentCierra, ")")); return true;
-            default:  return false;
+            case '+': return new Token(Token.TokenTipo.OpMAS, "+");
+            case '-': return new Token(Token.TokenTipo.OpMENOS, "-");
+            case '*': return new Token(Token.TokenTipo.OpMULTI, "*");
+            case '<': return new Token(Token.TokenTipo.CMPMEN, "<");
+            case '>': return new Token(Token.TokenTipo.CMPMAY, ">");
+            case '=': return new Token(Token.TokenTipo.Asignacion, "=");
+            case ';': return new Token(Token.TokenTipo.PuntoComa, ";");
+            case '{': return new Token(Token.TokenTipo.LlaveAbre, "{");
+            case '}': return new Token(Token.TokenTipo.LlaveCierra, "}");
+            case '(': return new Token(Token.TokenTipo.ParentAbre, "(");
+            case ')': return new Token(Token.TokenTipo.ParentCierra, ")");
+            default:  return null;
         }
     }
 
@@ -118,6 +193,15 @@ public class Scanner {
         return null;
     }
 
+    /** Todos los tokens generados, en orden (vista de solo lectura, sin copiar). */
+    public List<Token> getTokens()  { return Collections.unmodifiableList(listaTokens); }
+
+    /** Posición (índice de carácter en el código) donde empieza el token i. */
+    public int getPosicion(int i)   { return posiciones[i]; }
+
+    /** Copia de las posiciones de todos los tokens. */
+    public int[] getPosiciones()    { return Arrays.copyOf(posiciones, listaTokens.size()); }
+
     public String getMensajeError() { return mensajeError; }
     public boolean hayError()       { return hayError; }
-}
\ No newline at end of file
+}
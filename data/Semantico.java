@@ -1,307 +1,470 @@
 package data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import jdk.jfr.FlightRecorder;
+
+/** Análisis semántico dirigido por el Parser.
+ * La instancia solo guarda la lista de tokens; la tabla de símbolos, los errores y las
+ * direcciones viven en un Analisis nuevo por cada llamada, así que la misma lista de tokens
+ * se puede analizar desde varios hilos a la vez.
+ */
 public class Semantico {
 
     private final List<Token> listaTokens;
-    private StringBuilder mensajesError = new StringBuilder();
-    private String nombreClase;
 
-    /** Tabla de símbolos */
-    public static class Simbolo {
+    /** Tipos de MicroJava, con el tamaño “simulado” que ocupan para calcular direcciones. */
+    public enum Tipo {
+        INT("int", 2), BOOLEAN("boolean", 1);
+
         public final String nombre;
-        public final String tipo;
-        public String valor;
-        public final int direccion;
+        public final int tamano;
 
-        public Simbolo(String n, String t, String v, int d) {
-            this.nombre = n;
-            this.tipo = t;
-            this.valor = v;
-            this.direccion = d;
+        Tipo(String nombre, int tamano) {
+            this.nombre = nombre;
+            this.tamano = tamano;
+        }
+
+        @Override public String toString() { return nombre; }
+    }
+
+    /** Entrada de la tabla de símbolos.
+     * El valor asignado se guarda como entero (los boolean como 0 o 1) cuando la expresión solo
+     * tiene literales; si usa variables o un literal que no cabe en un int, el símbolo queda
+     * NO_CONSTANTE y solo se conserva el texto de la expresión, para mostrarlo. */
+    public static final class Simbolo {
+        public static final byte SIN_VALOR = 0, CONSTANTE = 1, NO_CONSTANTE = 2;
+
+        public final String nombre;
+        public final Tipo tipo;
+        public final int direccion;
+        public final byte estado;
+        private final int valor;
+        private final String expresion;     // null si el texto es el del valor
+
+        public Simbolo(String nombre, Tipo tipo, int direccion, byte estado, int valor, String expresion) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+            this.direccion = direccion;
+            this.estado = estado;
+            this.valor = valor;
+            this.expresion = expresion;
         }
 
         public String getNombre() { return nombre; }
-        public String getTipo() { return tipo; }
+        public Tipo getTipo() { return tipo; }
+        public boolean tieneValor() { return estado != SIN_VALOR; }
+        public boolean esConstante() { return estado == CONSTANTE; }
+        /** Valor constante como entero (0 o 1 si es boolean); solo tiene sentido si esConstante(). */
+        public int getEntero() { return valor; }
+        public boolean getBooleano() { return valor != 0; }
+        /** Texto de la expresión asignada, o "" si no se le asignó nada. */
+        public String getValor() {
+            if (expresion != null) return expresion;
+            if (estado != CONSTANTE) return "";
+            return textoDe(tipo, valor);
+        }
+        /** Texto de la expresión si no es el del valor constante (null si lo es). */
+        public String getExpresion() { return expresion; }
+
+        static String textoDe(Tipo tipo, int valor) {
+            return (tipo == Tipo.BOOLEAN) ? String.valueOf(valor != 0) : Integer.toString(valor);
+        }
     }
 
-    // Tabla de símbolos 
-    private final List<Simbolo> tablaSimbolos = new ArrayList<>();
-    private int nextDir = 0;
+    /** Lo que produce un análisis semántico. */
+    public static class Resultado {
+        private final List<Simbolo> tablaSimbolos;
+        private final String errores;
+        private final List<Diagnostico> diagnosticos;
+
+        Resultado(List<Simbolo> tablaSimbolos, String errores, List<Diagnostico> diagnosticos) {
+            this.tablaSimbolos = Collections.unmodifiableList(tablaSimbolos);
+            this.errores = errores;
+            this.diagnosticos = Collections.unmodifiableList(diagnosticos);
+        }
+
+        public boolean esCorrecto()                 { return errores.isEmpty(); }
+        public List<Simbolo> getTablaSimbolos()     { return tablaSimbolos; }
+        public String getErrores()                  { return errores; }
+        /** Los mismos errores de getErrores(), cada uno ubicado en un token. */
+        public List<Diagnostico> getDiagnosticos()  { return diagnosticos; }
+    }
 
     public Semantico(List<Token> tokens) {
         this.listaTokens = tokens;
     }
 
-    public List<Simbolo> getTablaSimbolos() { return tablaSimbolos; }
-    public String getErrores() { return mensajesError.toString(); }
+    public Resultado analizar() {
+        return analizar(null);
+    }
 
     /** Ejecuta el análisis semántico reutilizando el Parser:
      * El Parser valida sintaxis y, al reconocer reglas, invoca acciones semánticas aquí
      * (declarar, usar, asignacionArit, asignacionBool, validarCondicionWhile, etc.).
+     * Registra tiempo, búsquedas y errores en 'metricas' (puede ser null).
      */
-    public boolean analizar() {
-        mensajesError = new StringBuilder();
-        tablaSimbolos.clear();
-        nextDir = 0;
-
-        Parser p = new Parser(listaTokens);
-        p.analizar(this);
-
-        return mensajesError.length() == 0;
-    }
-
-    public void registrarNombreClase(String nombre) {
-        this.nombreClase = nombre;
+    public Resultado analizar(Metricas metricas) {
+        return analizar(null, metricas);
     }
 
-    /** Registra una variable en la tabla de símbolos validando redeclaraciones */
-    public void declarar(String nombre, String tipo) {
-        if (nombre.equals(nombreClase)) {
-            registrarError("El identificador '" + nombre + "' ya está usado como nombre de la clase.");
-            return;
-        }
-        if (existeSimbolo(nombre)) {
-            registrarError("Redeclaración de variable: " + nombre);
-            return;
+    /** Igual que analizar(metricas), pero si hay una traza del Parser sobre estos mismos tokens
+     * repite sus acciones en lugar de volver a parsear. */
+    Resultado analizar(TrazaAcciones traza, Metricas metricas) {
+        EventoFase evento = FlightRecorder.isInitialized() ? EventoFase.iniciar() : null;
+        if (metricas != null) metricas.iniciar(Metricas.Fase.SEMANTICO);
+
+        Analisis a = new Analisis(metricas);
+        if (traza != null) {
+            traza.reproducir(a);
+        } else {
+            new Parser(listaTokens).analizar(a, metricas);
         }
 
-        tablaSimbolos.add(new Simbolo(nombre, tipo, "", nextDir));
-        nextDir += sizeOf(tipo);
+        if (metricas != null) {
+            metricas.terminar(Metricas.Fase.SEMANTICO);
+            metricas.contarErrores(Metricas.Fase.SEMANTICO, a.numErrores);
+        }
+        if (evento != null) evento.terminar(Metricas.Fase.SEMANTICO, listaTokens.size(), a.numErrores);
+        a.simbolos.cerrar();
+        return new Resultado(a.simbolos.vista(), a.mensajesError.toString(), a.diagnosticos);
     }
 
-    /** Valida que la condición del while sea una expresión booleana correcta. */
-    public void validarCondicionWhile(List<Token> exprTokens) {
-        if (!validarExprBool(exprTokens)) {
-            registrarError("La condición del ciclo 'while' debe ser una expresión booleana válida.");
+    /** Estado de un solo análisis: tabla de símbolos (con las direcciones) y errores.
+     * SemanticoIncremental lo usa revisando una sentencia a la vez: mientras 'unidad' no es null,
+     * los errores, los nombres consultados y el valor asignado quedan en la unidad. */
+    static final class Analisis implements AccionesSemanticas {
+        private final StringBuilder mensajesError = new StringBuilder();
+        String nombreClase;
+        private final Metricas metricas;
+        SemanticoIncremental.Unidad unidad;
+
+        final TablaSimbolos simbolos = new TablaSimbolos();
+        private final List<Diagnostico> diagnosticos = new ArrayList<>();
+        private int numErrores = 0;
+
+        Analisis(Metricas metricas) {
+            this.metricas = metricas;
         }
-    }
 
-    /** Verifica que una variable exista antes de usarse en una expresión o instrucción. */
-    public void usar(String nombre) {
-        if (!existeSimbolo(nombre)) {
-            registrarError("Uso de variable no declarada: " + nombre);
+        @Override
+        public void registrarNombreClase(String nombre) {
+            this.nombreClase = nombre;
         }
-    }
 
-    /**
-     * Asignación aritmética: id = Expresion;
-     * - id debe ser int
-     * - la expresión debe ser aritmética (solo términos int y operadores aritméticos)
-     */
-    public void asignacionArit(String nombreVar, List<Token> exprTokens) {
-        Simbolo var = buscarSimbolo(nombreVar);
-        if (var == null) {
-            registrarError("Variable no declarada: " + nombreVar);
-            return;
+        /** Registra una variable en la tabla de símbolos validando redeclaraciones */
+        @Override
+        public void declarar(String nombre, Tipo tipo, int indice) {
+            if (nombre.equals(nombreClase)) {
+                registrarError("El identificador '" + nombre + "' ya está usado como nombre de la clase.", indice);
+                return;
+            }
+            if (existeSimbolo(nombre)) {
+                registrarError("Redeclaración de variable: " + nombre, indice);
+                return;
+            }
+
+            simbolos.agregar(nombre, tipo);
         }
 
-        if (!"int".equals(var.tipo)) {
-            registrarError("Tipos incompatibles en asignación a '" + nombreVar + "': " + var.tipo + " := int");
-            return;
+        /** Valida que la condición del while sea una expresión booleana correcta. */
+        @Override
+        public void validarCondicionWhile(List<Token> exprTokens, int inicio) {
+            if (!validarExprBool(exprTokens, inicio)) {
+                registrarError("La condición del ciclo 'while' debe ser una expresión booleana válida.", inicio);
+            }
         }
 
-        if (!validarExprArit(exprTokens)) {
-            registrarError("La expresión asignada a '" + nombreVar + "' no es aritmética válida.");
-            return;
+        /** Verifica que una variable exista antes de usarse en una expresión o instrucción. */
+        @Override
+        public void usar(String nombre, int indice) {
+            if (!existeSimbolo(nombre)) {
+                registrarError("Uso de variable no declarada: " + nombre, indice);
+            }
         }
 
-        setValor(nombreVar, exprAString(exprTokens));
-    }
+        /**
+         * Asignación aritmética: id = Expresion;
+         * - id debe ser int
+         * - la expresión debe ser aritmética (solo términos int y operadores aritméticos)
+         */
+        @Override
+        public void asignacionArit(String nombreVar, int indiceVar, List<Token> exprTokens) {
+            int var = buscarSimbolo(nombreVar);
+            if (var < 0) {
+                registrarError("Variable no declarada: " + nombreVar, indiceVar);
+                return;
+            }
 
-    /**
-     * Asignación booleana: id = ExpresionBooleana;
-     * - id debe ser boolean
-     * - la expresión debe evaluarse a boolean (true/false o comparación relacional)
-     */
-    public void asignacionBool(String nombreVar, List<Token> exprTokens) {
-        Simbolo var = buscarSimbolo(nombreVar);
-        if (var == null) {
-            registrarError("Variable no declarada: " + nombreVar);
-            return;
-        }
+            Tipo tipo = simbolos.tipo(var);
+            if (tipo != Tipo.INT) {
+                registrarError("Tipos incompatibles en asignación a '" + nombreVar + "': " + tipo.nombre + " := int", indiceVar);
+                return;
+            }
 
-        if (!"boolean".equals(var.tipo)) {
-            registrarError("Tipos incompatibles en asignación a '" + nombreVar + "': " + var.tipo + " := boolean");
-            return;
-        }
+            // La expresión empieza después de "Identificador ="
+            if (!validarExprArit(exprTokens, indiceVar + 2)) {
+                registrarError("La expresión asignada a '" + nombreVar + "' no es aritmética válida.", indiceVar);
+                return;
+            }
 
-        if (!validarExprBool(exprTokens)) {
-            registrarError("La expresión asignada a '" + nombreVar + "' no es booleana válida.");
-            return;
+            setValor(nombreVar, exprTokens);
         }
 
-        setValor(nombreVar, exprAString(exprTokens));
-    }
+        /**
+         * Asignación booleana: id = ExpresionBooleana;
+         * - id debe ser boolean
+         * - la expresión debe evaluarse a boolean (true/false o comparación relacional)
+         */
+        @Override
+        public void asignacionBool(String nombreVar, int indiceVar, List<Token> exprTokens) {
+            int var = buscarSimbolo(nombreVar);
+            if (var < 0) {
+                registrarError("Variable no declarada: " + nombreVar, indiceVar);
+                return;
+            }
 
-    // ===========================
-    // Validación de expresiones 
-    // ===========================
+            Tipo tipo = simbolos.tipo(var);
+            if (tipo != Tipo.BOOLEAN) {
+                registrarError("Tipos incompatibles en asignación a '" + nombreVar + "': " + tipo.nombre + " := boolean", indiceVar);
+                return;
+            }
 
-    /** Expresión aritmética: Expresion OP Expresion */
-    private boolean validarExprArit(List<Token> expr) {
-        boolean esperoTermino = true;
-        for (Token t : expr) {
-            if (esPuntoComa(t)) break;
-            if (esperoTermino) {
-                String tipo = tipoDeTermino(t);
-                if (tipo == null || "boolean".equals(tipo)) {
-                    registrarError("Término inválido en expresión aritmética");
+            if (!validarExprBool(exprTokens, indiceVar + 2)) {
+                registrarError("La expresión asignada a '" + nombreVar + "' no es booleana válida.", indiceVar);
+                return;
+            }
+
+            setValor(nombreVar, exprTokens);
+        }
+
+        // ===========================
+        // Validación de expresiones 
+        // ===========================
+
+        /** Expresión aritmética: Expresion OP Expresion ('base' es el índice del primer token) */
+        private boolean validarExprArit(List<Token> expr, int base) {
+            boolean esperoTermino = true;
+            for (int i = 0; i < expr.size(); i++) {
+                Token t = expr.get(i);
+                if (esPuntoComa(t)) break;
+                if (esperoTermino) {
+                    Tipo tipo = tipoDeTermino(t, base + i);
+                    if (tipo != Tipo.INT) {
+                        registrarError("Término inválido en expresión aritmética", base + i);
+                        return false;
+                    }
+                    esperoTermino = false;
+                } else {
+                // Debe de contener un operador + - *
+                if (!esOperadorArit(t)) {
+                    registrarError("Operador inválido en expresión aritmética", base + i);
                     return false;
                 }
-                esperoTermino = false;
-            } else {
-            // Debe de contener un operador + - *
-            if (!esOperadorArit(t)) {
-                registrarError("Operador inválido en expresión aritmética");
-                return false;
+                esperoTermino = true; // Despues del operador espero término
+                }
             }
-            esperoTermino = true; // Despues del operador espero término
+            if (esperoTermino) {
+                registrarError("Expresión aritmética incompleta", base + Math.max(0, expr.size() - 1));
+                return false;
             }
-        }
-        if (esperoTermino) {
-            registrarError("Expresión aritmética incompleta");
-            return false;
-        }
-
-        return true;
-    }
 
-    /** Expresión booleana: Expresion CMP Expresion | true | false */
-    private boolean validarExprBool(List<Token> expr) {
-        // True or False
-        if (expr.size() == 1 && (expr.get(0).codigo == Parser.C_TRUE || expr.get(0).codigo == Parser.C_FALSE)) {
             return true;
         }
 
-        // Se busca el comparador
-        int iCmp = -1;
-        for (int i = 0; i < expr.size(); i++) {
-            if (esComparador(expr.get(i))) {
-                iCmp = i;
-                break;
+        /** Expresión booleana: Expresion CMP Expresion | true | false */
+        private boolean validarExprBool(List<Token> expr, int base) {
+            // True or False
+            if (expr.size() == 1 && (expr.get(0).codigo == Parser.C_TRUE || expr.get(0).codigo == Parser.C_FALSE)) {
+                return true;
             }
-        }
 
-        // El comparador no puede ser el primer ni ultimo token
-        if (iCmp == -1) {
-            registrarError("Falta comparador (< o >) en expresión booleana");
-            return false;
-        }
+            // Se busca el comparador
+            int iCmp = -1;
+            for (int i = 0; i < expr.size(); i++) {
+                if (esComparador(expr.get(i))) {
+                    iCmp = i;
+                    break;
+                }
+            }
 
-        if (iCmp == 0 || iCmp == expr.size() - 1) {
-            registrarError("Comparación incompleta en expresión booleana");
-            return false;
-        }
+            // El comparador no puede ser el primer ni ultimo token
+            if (iCmp == -1) {
+                registrarError("Falta comparador (< o >) en expresión booleana", base);
+                return false;
+            }
 
-        List<Token> izquierda = expr.subList(0, iCmp);
-        List<Token> derecha = expr.subList(iCmp + 1, expr.size());
+            if (iCmp == 0 || iCmp == expr.size() - 1) {
+                registrarError("Comparación incompleta en expresión booleana", base + iCmp);
+                return false;
+            }
 
-        // Validar ambos lados como expresiones aritméticas (int)
-        if (!validarExprArit(izquierda)) {
-            registrarError("Error en comparación: el lado izquierdo no es una expresión aritmética válida (int).");
-            return false;
-        }
+            List<Token> izquierda = expr.subList(0, iCmp);
+            List<Token> derecha = expr.subList(iCmp + 1, expr.size());
 
-        if (!validarExprArit(derecha)) {
-            registrarError("Error en comparación: el lado derecho no es una expresión aritmética válida (int).");
-            return false;
-        }
+            // Validar ambos lados como expresiones aritméticas (int)
+            if (!validarExprArit(izquierda, base)) {
+                registrarError("Error en comparación: el lado izquierdo no es una expresión aritmética válida (int).", base);
+                return false;
+            }
 
-        return true;
-    }
+            if (!validarExprArit(derecha, base + iCmp + 1)) {
+                registrarError("Error en comparación: el lado derecho no es una expresión aritmética válida (int).", base + iCmp + 1);
+                return false;
+            }
+
+            return true;
+        }
 
-    // Operaciones sobre la tabla de símbolos
-    private boolean existeSimbolo(String nombre) {
-        for (Simbolo s : tablaSimbolos) {
-            if (s.nombre.equals(nombre)) return true;
+        // Operaciones sobre la tabla de símbolos
+        private boolean existeSimbolo(String nombre) {
+            if (metricas != null) metricas.contarBusqueda();
+            if (unidad != null) unidad.consultar(nombre);
+            return simbolos.buscar(nombre) >= 0;
         }
-        return false;
-    }
 
-    private Simbolo buscarSimbolo(String nombre) {
-        for (Simbolo s : tablaSimbolos) {
-            if (s.nombre.equals(nombre)) return s;
+        /** Posición del símbolo en la tabla, o -1. */
+        private int buscarSimbolo(String nombre) {
+            if (metricas != null) metricas.contarBusqueda();
+            if (unidad != null) unidad.consultar(nombre);
+            return simbolos.buscar(nombre);
         }
-        return null;
-    }
 
-    private void setValor(String nombre, String valor) {
-        for (Simbolo s : tablaSimbolos) {
-            if (s.nombre.equals(nombre)) {
-                s.valor = valor;
+        /** Guarda la expresión de una asignación ya validada, evaluada si solo tiene literales. */
+        private void setValor(String nombre, List<Token> expr) {
+            if (metricas != null) metricas.contarBusqueda();
+            long v = evaluar(expr);
+            byte estado = (v == NO_CONSTANTE) ? Simbolo.NO_CONSTANTE : Simbolo.CONSTANTE;
+            String texto = exprAString(expr);
+            Tipo tipo = esBooleana(expr) ? Tipo.BOOLEAN : Tipo.INT;
+            if (estado == Simbolo.CONSTANTE && texto.equals(Simbolo.textoDe(tipo, (int) v))) texto = null;
+            if (unidad != null) {
+                // El valor final es el de la última asignación del programa: lo resuelve SemanticoIncremental
+                unidad.asignar(nombre, estado, (int) v, texto);
                 return;
             }
+            int i = simbolos.buscar(nombre);
+            if (i >= 0) simbolos.asignar(i, estado, (int) v, texto);
         }
-    }
 
-    /** Utilidades para validación de expresiones 
-     * Devuelve el tipo semántico de un token usado como término (o null si no aplica). */
-    private String tipoDeTermino(Token t) {
-        if (t == null) return null;
+        // ===========================
+        // Evaluación de constantes
+        // ===========================
+
+        private static final long NO_CONSTANTE = Long.MIN_VALUE;
+
+        /** Valor de una expresión válida que solo tiene literales (los boolean como 0 o 1),
+         * o NO_CONSTANTE si usa alguna variable. */
+        private long evaluar(List<Token> expr) {
+            if (expr.size() == 1 && expr.get(0).codigo == Parser.C_TRUE) return 1;
+            if (expr.size() == 1 && expr.get(0).codigo == Parser.C_FALSE) return 0;
+            for (int i = 0; i < expr.size(); i++) {
+                if (!esComparador(expr.get(i))) continue;
+                long izq = evaluarArit(expr.subList(0, i));
+                long der = evaluarArit(expr.subList(i + 1, expr.size()));
+                if (izq == NO_CONSTANTE || der == NO_CONSTANTE) return NO_CONSTANTE;
+                boolean r = (expr.get(i).codigo == Parser.C_CMPMAY) ? izq > der : izq < der;
+                return r ? 1 : 0;
+            }
+            return evaluarArit(expr);
+        }
 
-        if (t.codigo == Parser.C_NUMENTERO) return "int";
-        if (t.codigo == Parser.C_TRUE || t.codigo == Parser.C_FALSE) return "boolean";
+        /** Término OP Término ... con aritmética de int: '*' antes que '+' y '-', y desborde como en Java.
+         * Un literal que no cabe en un int tampoco es constante. */
+        private long evaluarArit(List<Token> expr) {
+            int suma = 0, producto = 1, signo = 1;
+            for (int i = 0; i < expr.size(); i++) {
+                Token t = expr.get(i);
+                if (esPuntoComa(t)) break;
+                if (i % 2 == 0) {
+                    if (t.codigo != Parser.C_NUMENTERO) return NO_CONSTANTE;
+                    try {
+                        producto *= Integer.parseInt(t.valor);
+                    } catch (NumberFormatException e) {
+                        return NO_CONSTANTE;
+                    }
+                } else if (t.codigo != Parser.C_OPMULTI) {
+                    suma += signo * producto;
+                    producto = 1;
+                    signo = (t.codigo == Parser.C_OPMENOS) ? -1 : 1;
+                }
+            }
+            return suma + signo * producto;
+        }
 
-        if (t.codigo == Parser.C_IDENTIFICADOR) {
-            Simbolo s = buscarSimbolo(t.valor);
-            if (s == null) {
-                registrarError("Uso de variable no declarada: " + t.valor);
-                return null;
+        private boolean esBooleana(List<Token> expr) {
+            for (Token t : expr) {
+                if (t != null && (t.codigo == Parser.C_TRUE || t.codigo == Parser.C_FALSE || esComparador(t))) return true;
             }
-            return s.tipo;
+            return false;
         }
 
-        return null;
-    }
+        /** Utilidades para validación de expresiones 
+         * Devuelve el tipo semántico de un token usado como término (o null si no aplica). */
+        private Tipo tipoDeTermino(Token t, int indice) {
+            if (t == null) return null;
 
-    private boolean esOperadorArit(Token t) {
-        if (t == null) return false;
-        return t.codigo == Parser.C_OPMAS || t.codigo == Parser.C_OPMENOS || t.codigo == Parser.C_OPMULTI;
-    }
+            if (t.codigo == Parser.C_NUMENTERO) return Tipo.INT;
+            if (t.codigo == Parser.C_TRUE || t.codigo == Parser.C_FALSE) return Tipo.BOOLEAN;
 
-    private boolean esComparador(Token t) {
-        if (t == null) return false;
-        return t.codigo == Parser.C_CMPMAY || t.codigo == Parser.C_CMPMEN;
-    }
+            if (t.codigo == Parser.C_IDENTIFICADOR) {
+                int s = buscarSimbolo(t.valor);
+                if (s < 0) {
+                    registrarError("Uso de variable no declarada: " + t.valor, indice);
+                    return null;
+                }
+                return simbolos.tipo(s);
+            }
 
-    private boolean esPuntoComa(Token t) {
-        return t != null && t.codigo == Parser.C_PUNTOCOMA;
-    }
+            return null;
+        }
 
-    /** Tamaño “simulado” por tipo para calcular direcciones. */
-    private int sizeOf(String tipo) {
-        switch (tipo) {
-            case "int": return 2;
-            case "boolean": return 1;
-            default: return 0;
+        private boolean esOperadorArit(Token t) {
+            if (t == null) return false;
+            return t.codigo == Parser.C_OPMAS || t.codigo == Parser.C_OPMENOS || t.codigo == Parser.C_OPMULTI;
         }
-    }
 
-    /** Convierte una lista de tokens a texto, para guardar la expresión asignada. */
-    private String exprAString(List<Token> expr) {
-        StringBuilder sb = new StringBuilder();
-        for (Token t : expr) {
-            if (t == null) continue;
-            if (sb.length() > 0) sb.append(' ');
-            sb.append(t.valor);
+        private boolean esComparador(Token t) {
+            if (t == null) return false;
+            return t.codigo == Parser.C_CMPMAY || t.codigo == Parser.C_CMPMEN;
+        }
+
+        private boolean esPuntoComa(Token t) {
+            return t != null && t.codigo == Parser.C_PUNTOCOMA;
         }
-        return sb.toString().trim();
-    }
 
-    /** Agrega un error al mensaje de errorres */
-    private void registrarError(String msg) {
-        if (msg == null || msg.isEmpty()) return;
+        /** Convierte una lista de tokens a texto, para guardar la expresión asignada. */
+        private String exprAString(List<Token> expr) {
+            StringBuilder sb = new StringBuilder();
+            for (Token t : expr) {
+                if (t == null) continue;
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(t.valor);
+            }
+            return sb.toString().trim();
+        }
 
-        int len = mensajesError.length();
-        if (len > 0) {
-            int lastNl = mensajesError.lastIndexOf("\n");
-            String last = (lastNl >= 0) ? mensajesError.substring(lastNl + 1) : mensajesError.toString();
-            if (msg.equals(last)) return;
-            mensajesError.append('\n');
+        /** Agrega un error al mensaje de errorres, ubicado en el token 'indice' */
+        private void registrarError(String msg, int indice) {
+            if (msg == null || msg.isEmpty()) return;
+            if (unidad != null) {
+                // Sin descartar repetidos: eso depende del error anterior en todo el programa
+                unidad.agregarError(new Diagnostico(Metricas.Fase.SEMANTICO, msg, indice));
+                return;
+            }
+
+            int len = mensajesError.length();
+            if (len > 0) {
+                int lastNl = mensajesError.lastIndexOf("\n");
+                String last = (lastNl >= 0) ? mensajesError.substring(lastNl + 1) : mensajesError.toString();
+                if (msg.equals(last)) return;
+                mensajesError.append('\n');
+            }
+            mensajesError.append(msg);
+            diagnosticos.add(new Diagnostico(Metricas.Fase.SEMANTICO, msg, indice));
+            numErrores++;
         }
-        mensajesError.append(msg);
     }
-}
\ No newline at end of file
+}
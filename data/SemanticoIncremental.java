@@ -0,0 +1,434 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** Análisis semántico que, después de una edición, solo vuelve a revisar lo que pudo cambiar.
+ *
+ * Las acciones que el Parser graba se dividen en unidades: el nombre de la clase, cada
+ * declaración y cada sentencia (una asignación o la condición de un while). De cada sentencia
+ * se guardan sus errores, los nombres que consultó en la tabla de símbolos y el valor que
+ * asignó. Como la gramática pone todas las declaraciones antes de las sentencias, una
+ * sentencia solo depende de sus propios tokens y del tipo de los nombres que consulta.
+ *
+ * Tras una edición se revisan las sentencias cuyos tokens cambiaron y, si cambió alguna
+ * declaración, las que consultan un nombre cuyo tipo cambió (o que dejó de existir o empezó
+ * a existir). La tabla de símbolos y los diagnósticos se actualizan en su lugar; el resultado
+ * es el mismo que daría Semantico sobre el programa completo.
+ *
+ * El Parser sí recorre siempre todo el programa: sin él no se sabe si la sintaxis es correcta.
+ */
+public class SemanticoIncremental {
+
+    /** Lo que se sabe de una unidad del programa. */
+    static final class Unidad {
+        static final byte CLASE = 0, DECLARACION = 1, SENTENCIA = 2;
+        private static final String[] SIN_CONSULTAS = new String[0];
+
+        final byte tipo;
+        final String nombre;            // clase o variable declarada (null en sentencias)
+        int inicio, fin;                // tokens [inicio, fin) que abarca
+        int desde, hasta;               // acciones [desde, hasta) de la traza actual
+        List<Diagnostico> errores;      // sin descartar repetidos (null si no hay)
+        String[] consultas = SIN_CONSULTAS;
+        int numConsultas;
+        String asignado;                // variable de la asignación correcta que hizo la sentencia (o null)
+        byte estado;                    // y lo que le asignó, como en TablaSimbolos.asignar
+        int valor;
+        String texto;
+        boolean viva = true;
+        int ronda;                      // última ronda en que se revisó
+
+        Unidad(byte tipo, String nombre) {
+            this.tipo = tipo;
+            this.nombre = nombre;
+        }
+
+        void consultar(String n) {
+            if (consulto(n)) return;
+            if (numConsultas == consultas.length) consultas = Arrays.copyOf(consultas, Math.max(4, numConsultas * 2));
+            consultas[numConsultas++] = n;
+        }
+
+        boolean consulto(String n) {
+            for (int i = 0; i < numConsultas; i++) if (consultas[i].equals(n)) return true;
+            return false;
+        }
+
+        void asignar(String n, byte e, int v, String t) {
+            asignado = n;
+            estado = e;
+            valor = v;
+            texto = t;
+        }
+
+        void agregarError(Diagnostico d) {
+            if (errores == null) errores = new ArrayList<>(2);
+            errores.add(d);
+        }
+    }
+
+    /** Unidades de una traza, en el orden del programa. */
+    private static final class Division {
+        int n;
+        byte[] tipo = new byte[64];
+        String[] nombre = new String[64];
+        int[] desde = new int[64], hasta = new int[64], inicio = new int[64], fin = new int[64];
+
+        void agregar(byte t, String nom, int d, int h, int ini, int f) {
+            if (n == tipo.length) {
+                int tam = n * 2;
+                tipo = Arrays.copyOf(tipo, tam);
+                nombre = Arrays.copyOf(nombre, tam);
+                desde = Arrays.copyOf(desde, tam);
+                hasta = Arrays.copyOf(hasta, tam);
+                inicio = Arrays.copyOf(inicio, tam);
+                fin = Arrays.copyOf(fin, tam);
+            }
+            tipo[n] = t;
+            nombre[n] = nom;
+            desde[n] = d;
+            hasta[n] = h;
+            inicio[n] = ini;
+            fin[n] = f;
+            n++;
+        }
+    }
+
+    private static final Comparator<Unidad> POR_POSICION = Comparator.comparingInt(u -> u.inicio);
+
+    // Estado del último análisis con sintaxis correcta (unidades == null: todavía no hay)
+    private ArrayList<Unidad> unidades;
+    private TrazaAcciones traza;
+    private Semantico.Analisis analisis;
+    private final Map<String, List<Unidad>> dependientes = new HashMap<>();     // nombre -> sentencias que lo consultan
+    private final Map<String, TreeSet<Unidad>> asignaciones = new HashMap<>();  // nombre -> sentencias que le asignan
+    private final TreeSet<Unidad> conErrores = new TreeSet<>(POR_POSICION);
+    private Semantico.Resultado resultado;
+    private int ronda, revisadas;
+
+    /** Analiza todo el programa, sin aprovechar el análisis anterior. */
+    public Parser.Resultado analizar(List<Token> tokens) {
+        return analizar(tokens, -1, -1, 0);
+    }
+
+    /** Parsea 'tokens' y, si la sintaxis es correcta, actualiza el análisis semántico.
+     * Desde el último análisis con sintaxis correcta solo cambiaron los tokens [inicio, fin):
+     * los anteriores son los mismos y los siguientes son los de entonces, corridos 'delta'
+     * posiciones (tokens agregados menos tokens quitados). Si la sintaxis no es correcta
+     * el análisis semántico anterior se conserva y el rango debe seguir acumulándose. */
+    public Parser.Resultado analizar(List<Token> tokens, int inicio, int fin, int delta) {
+        TrazaAcciones nueva = new TrazaAcciones();
+        Parser.Resultado sintactico = new Parser(tokens).analizar(nueva, null);
+        if (!sintactico.esCorrecto()) return sintactico;
+
+        ronda++;
+        revisadas = 0;
+        if (unidades == null || inicio < 0 || !actualizar(nueva, tokens, inicio, fin, delta)) {
+            completo(nueva, tokens);
+        }
+        resultado = armarResultado();
+        return sintactico;
+    }
+
+    /** Resultado semántico del último análisis con sintaxis correcta (null si no hubo ninguno).
+     * La tabla de símbolos es la misma que se sigue actualizando en los análisis siguientes. */
+    public Semantico.Resultado getResultado() { return resultado; }
+
+    /** Cuántas unidades se revisaron en el último análisis (todas, si fue completo). */
+    public int getRevisadas() { return revisadas; }
+
+    // ===========================
+    // División en unidades
+    // ===========================
+
+    /** Agrupa las acciones [desde, hasta) de la traza: cada unidad termina en una declaración, una
+     * asignación o la condición de un while (la de una asignación booleana sigue en su asignación).
+     * Devuelve false si la última unidad quedó sin terminar. */
+    private static boolean dividir(TrazaAcciones traza, List<Token> tokens, int desde, int hasta, Division d) {
+        int primera = desde, ini = Integer.MAX_VALUE, fin = Integer.MIN_VALUE;
+        for (int i = desde; i < hasta; i++) {
+            int idx = traza.indice(i), a, b;
+            byte tipo = Unidad.SENTENCIA;
+            String nombre = null;
+            boolean cierra = true;
+            switch (traza.accion(i)) {
+                case TrazaAcciones.NOMBRE_CLASE:
+                    a = 0; b = 3;                   // class Identificador {
+                    tipo = Unidad.CLASE;
+                    nombre = (String) traza.primero(i);
+                    break;
+                case TrazaAcciones.DECLARAR:
+                    a = idx - 1; b = idx + 2;       // TipoDato Identificador ;
+                    tipo = Unidad.DECLARACION;
+                    nombre = (String) traza.primero(i);
+                    break;
+                case TrazaAcciones.USAR:
+                    a = idx; b = idx + 1;
+                    cierra = false;
+                    break;
+                case TrazaAcciones.ASIGNACION_ARIT:
+                case TrazaAcciones.ASIGNACION_BOOL:
+                    a = idx; b = idx + 3 + ((List<?>) traza.segundo(i)).size();    // Identificador = ... ;
+                    break;
+                default: {
+                    int tam = ((List<?>) traza.primero(i)).size();
+                    a = idx; b = idx + tam + 1;
+                    cierra = idx + tam < tokens.size() && tokens.get(idx + tam).codigo == Parser.C_PARENTCIERRA;
+                }
+            }
+            ini = Math.min(ini, a);
+            fin = Math.max(fin, b);
+            if (cierra) {
+                d.agregar(tipo, nombre, primera, i + 1, ini, fin);
+                primera = i + 1;
+                ini = Integer.MAX_VALUE;
+                fin = Integer.MIN_VALUE;
+            }
+        }
+        if (primera == hasta) return true;
+        d.agregar(Unidad.SENTENCIA, null, primera, hasta, ini, fin);
+        return false;
+    }
+
+    private static Unidad crear(Division d, int k) {
+        Unidad u = new Unidad(d.tipo[k], d.nombre[k]);
+        u.inicio = d.inicio[k];
+        u.fin = d.fin[k];
+        u.desde = d.desde[k];
+        u.hasta = d.hasta[k];
+        return u;
+    }
+
+    // ===========================
+    // Análisis completo e incremental
+    // ===========================
+
+    private void completo(TrazaAcciones nueva, List<Token> tokens) {
+        Division d = new Division();
+        dividir(nueva, tokens, 0, nueva.size(), d);
+        traza = nueva;
+        unidades = new ArrayList<>(d.n);
+        dependientes.clear();
+        asignaciones.clear();
+        conErrores.clear();
+        analisis = new Semantico.Analisis(null);
+        for (int k = 0; k < d.n; k++) {
+            Unidad u = crear(d, k);
+            unidades.add(u);
+            revisar(u);
+        }
+        asignarValores();
+    }
+
+    /** Devuelve false, sin haber cambiado nada, si la traza nueva no encaja con la anterior
+     * fuera del rango editado (entonces se analiza todo). */
+    private boolean actualizar(TrazaAcciones nueva, List<Token> tokens, int inicio, int fin, int delta) {
+        int n = unidades.size();
+        int finAnterior = fin - delta;
+
+        // Unidades que tocan el rango editado: [p, q) antes; las demás se conservan. Las acciones
+        // anteriores a la unidad p son las mismas y las desde la unidad q están corridas 'dAcciones'.
+        int p = primeraDesde(inicio);
+        int q = Math.max(p, primeraDespues(finAnterior));
+        int dAcciones = nueva.size() - traza.size();
+        int desde = (p < n) ? unidades.get(p).desde : traza.size();
+        int hasta = (q < n) ? unidades.get(q).desde + dAcciones : nueva.size();
+        if (hasta < desde || desde > nueva.size()) return false;
+        if (desde > 0 && (nueva.accion(desde - 1) != traza.accion(desde - 1)
+                || nueva.indice(desde - 1) != traza.indice(desde - 1))) return false;
+        if (q < n) {
+            int k = unidades.get(q).desde;
+            if (hasta >= nueva.size()) return false;
+            if (nueva.accion(hasta) != traza.accion(k) || nueva.indice(hasta) != traza.indice(k) + delta) return false;
+        }
+        Division d = new Division();
+        if (!dividir(nueva, tokens, desde, hasta, d)) return false;
+
+        // Quitar las unidades editadas antes de correr posiciones: los TreeSet ordenan por inicio
+        List<Unidad> quitadas = new ArrayList<>(unidades.subList(p, q));
+        boolean declaraciones = false;
+        for (Unidad u : quitadas) {
+            olvidar(u);
+            u.viva = false;
+            declaraciones |= u.tipo != Unidad.SENTENCIA;
+        }
+        traza = nueva;
+        if (delta != 0 || dAcciones != 0) {
+            for (int k = q; k < n; k++) {
+                Unidad u = unidades.get(k);
+                u.desde += dAcciones;
+                u.hasta += dAcciones;
+                u.inicio += delta;
+                u.fin += delta;
+                if (u.errores != null && delta != 0) {
+                    for (int e = 0; e < u.errores.size(); e++) {
+                        Diagnostico x = u.errores.get(e);
+                        u.errores.set(e, new Diagnostico(x.fase, x.mensaje, x.indiceToken + delta));
+                    }
+                }
+            }
+        }
+        List<Unidad> nuevas = new ArrayList<>(d.n);
+        for (int k = 0; k < d.n; k++) {
+            Unidad u = crear(d, k);
+            nuevas.add(u);
+            declaraciones |= u.tipo != Unidad.SENTENCIA;
+        }
+        unidades.subList(p, q).clear();
+        unidades.addAll(p, nuevas);
+
+        // Asignaciones que cambiaron: hay que volver a buscar la última de cada nombre
+        Set<String> asignados = new HashSet<>();
+        for (Unidad u : quitadas) if (u.asignado != null) asignados.add(u.asignado);
+
+        if (declaraciones) {
+            Set<String> candidatos = new HashSet<>();
+            if (analisis.nombreClase != null) candidatos.add(analisis.nombreClase);
+            for (Unidad u : quitadas) if (u.nombre != null) candidatos.add(u.nombre);
+            for (Unidad u : nuevas) if (u.nombre != null) candidatos.add(u.nombre);
+            Map<String, Semantico.Tipo> tiposAntes = new HashMap<>();
+            for (String c : candidatos) tiposAntes.put(c, tipoDe(c));
+
+            // Las direcciones dependen de todas las declaraciones anteriores: se vuelven a hacer todas
+            analisis = new Semantico.Analisis(null);
+            for (Unidad u : unidades) {
+                if (u.tipo == Unidad.SENTENCIA) break;
+                revisar(u);
+            }
+            for (Unidad u : nuevas) if (u.tipo == Unidad.SENTENCIA) revisar(u);
+            for (String c : candidatos) {
+                if (tiposAntes.get(c) != tipoDe(c)) revisarDependientes(c, asignados);
+            }
+            asignarValores();
+        } else {
+            for (Unidad u : nuevas) {
+                revisar(u);
+                if (u.asignado != null) asignados.add(u.asignado);
+            }
+            for (String a : asignados) {
+                int i = analisis.simbolos.buscar(a);
+                if (i >= 0) asignarValor(i, a);
+            }
+        }
+        return true;
+    }
+
+    private int primeraDesde(int indice) {
+        int lo = 0, hi = unidades.size();
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (unidades.get(m).fin < indice) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    private int primeraDespues(int indice) {
+        int lo = 0, hi = unidades.size();
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (unidades.get(m).inicio <= indice) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    private Semantico.Tipo tipoDe(String nombre) {
+        int i = analisis.simbolos.buscar(nombre);
+        return (i >= 0) ? analisis.simbolos.tipo(i) : null;
+    }
+
+    /** Vuelve a revisar las sentencias que consultan 'nombre'; anota en 'asignados' lo que asignaban o asignan. */
+    private void revisarDependientes(String nombre, Set<String> asignados) {
+        List<Unidad> lista = dependientes.get(nombre);
+        if (lista == null) return;
+        // Se limpian de paso las unidades quitadas o que ya no consultan el nombre
+        int vivas = 0;
+        for (int i = 0; i < lista.size(); i++) {
+            Unidad u = lista.get(i);
+            if (!u.viva || !u.consulto(nombre)) continue;
+            lista.set(vivas++, u);
+            if (u.ronda == ronda) continue;
+            if (u.asignado != null) asignados.add(u.asignado);
+            revisar(u);
+            if (u.asignado != null) asignados.add(u.asignado);
+        }
+        lista.subList(vivas, lista.size()).clear();
+    }
+
+    /** Saca la unidad de los índices de asignaciones y errores. */
+    private void olvidar(Unidad u) {
+        if (u.asignado != null) {
+            TreeSet<Unidad> s = asignaciones.get(u.asignado);
+            if (s != null) s.remove(u);
+        }
+        conErrores.remove(u);
+    }
+
+    /** Repite las acciones de la unidad sobre la tabla actual y registra lo que produjo. */
+    private void revisar(Unidad u) {
+        olvidar(u);
+        u.errores = null;
+        u.asignado = null;
+        int consultasAntes = u.numConsultas;
+        String[] anteriores = u.consultas;
+        u.consultas = Unidad.SIN_CONSULTAS;
+        u.numConsultas = 0;
+
+        analisis.unidad = u;
+        traza.reproducir(analisis, u.desde, u.hasta);
+        analisis.unidad = null;
+        u.ronda = ronda;
+        revisadas++;
+
+        if (u.tipo == Unidad.SENTENCIA) {
+            for (int i = 0; i < u.numConsultas; i++) {
+                String c = u.consultas[i];
+                boolean yaEstaba = false;
+                for (int j = 0; j < consultasAntes && !yaEstaba; j++) yaEstaba = anteriores[j].equals(c);
+                if (!yaEstaba) dependientes.computeIfAbsent(c, k -> new ArrayList<>()).add(u);
+            }
+            if (u.asignado != null) asignaciones.computeIfAbsent(u.asignado, k -> new TreeSet<>(POR_POSICION)).add(u);
+        }
+        if (u.errores != null) conErrores.add(u);
+    }
+
+    private void asignarValores() {
+        TablaSimbolos simbolos = analisis.simbolos;
+        for (int i = 0; i < simbolos.size(); i++) asignarValor(i, simbolos.nombre(i));
+    }
+
+    /** Deja en el símbolo i ('nombre') el valor de la última asignación del programa. */
+    private void asignarValor(int i, String nombre) {
+        TreeSet<Unidad> s = asignaciones.get(nombre);
+        if (s == null || s.isEmpty()) {
+            analisis.simbolos.asignar(i, Semantico.Simbolo.SIN_VALOR, 0, null);
+        } else {
+            Unidad u = s.last();
+            analisis.simbolos.asignar(i, u.estado, u.valor, u.texto);
+        }
+    }
+
+    /** Errores en el orden del programa, descartando un mensaje igual al anterior como hace Semantico. */
+    private Semantico.Resultado armarResultado() {
+        StringBuilder mensajes = new StringBuilder();
+        List<Diagnostico> diagnosticos = new ArrayList<>();
+        String ultimo = null;
+        for (Unidad u : conErrores) {
+            for (Diagnostico e : u.errores) {
+                if (e.mensaje.equals(ultimo)) continue;
+                if (mensajes.length() > 0) mensajes.append('\n');
+                mensajes.append(e.mensaje);
+                diagnosticos.add(e);
+                ultimo = e.mensaje;
+            }
+        }
+        return new Semantico.Resultado(analisis.simbolos.vista(), mensajes.toString(), diagnosticos);
+    }
+}
@@ -0,0 +1,112 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Sesión de compilación sobre un código fuente: guarda los tokens, el resultado del Parser
+ * y el del Semántico, y calcula cada fase solo la primera vez que se pide.
+ * Al parsear se graban las acciones semánticas, así que pedir el Semántico después del
+ * Parser solo cuesta el trabajo semántico. Todo se descarta cuando cambia el código.
+ * Los métodos son synchronized: la interfaz la comparte entre los análisis en segundo plano
+ * del mismo código (para otro código crea otra sesión, sin esperar a los análisis anteriores).
+ */
+public class SesionCompilacion {
+
+    private String codigo;
+
+    // Artefactos de cada fase (null = todavía no se calculan)
+    private List<Token> tokens;
+    private List<Diagnostico> erroresLexicos;
+    private Parser.Resultado sintactico;
+    private TrazaAcciones traza;
+    private Semantico.Resultado semantico;
+
+    public SesionCompilacion(String codigo) {
+        this.codigo = (codigo != null) ? codigo : "";
+    }
+
+    public synchronized String getCodigo() { return codigo; }
+
+    /** Reemplaza el código fuente; si es distinto del actual se descartan todas las fases. */
+    public synchronized void setCodigo(String nuevo) {
+        if (nuevo == null) nuevo = "";
+        if (nuevo.equals(codigo)) return;
+        codigo = nuevo;
+        tokens = null;
+        erroresLexicos = null;
+        sintactico = null;
+        traza = null;
+        semantico = null;
+    }
+
+    public List<Token> getTokens() { return getTokens(null); }
+
+    /** Tokens del código actual; 'metricas' (puede ser null) solo mide las fases que sí se ejecutan. */
+    public synchronized List<Token> getTokens(Metricas metricas) {
+        if (tokens == null) {
+            tokens = new Scanner(codigo, metricas).getTokens();
+            List<Diagnostico> lista = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                Token tk = tokens.get(i);
+                if (tk.tipo == Token.TokenTipo.Invalido) {
+                    lista.add(new Diagnostico(Metricas.Fase.LEXICO, "Error léxico: token inválido -> " + tk.valor, i));
+                }
+            }
+            erroresLexicos = Collections.unmodifiableList(lista);
+        }
+        return tokens;
+    }
+
+    /** Un diagnóstico por cada token inválido (lista vacía si el léxico es correcto). */
+    public synchronized List<Diagnostico> getErroresLexicos() {
+        getTokens(null);
+        return erroresLexicos;
+    }
+
+    public Parser.Resultado getSintactico() { return getSintactico(null); }
+
+    public synchronized Parser.Resultado getSintactico(Metricas metricas) {
+        if (sintactico == null) {
+            List<Token> t = getTokens(metricas);
+            TrazaAcciones nueva = new TrazaAcciones();
+            sintactico = new Parser(t).analizar(nueva, metricas);
+            traza = nueva;
+        }
+        return sintactico;
+    }
+
+    public Semantico.Resultado getSemantico() { return getSemantico(null); }
+
+    /** Resultado semántico; si el Parser ya corrió, repite sus acciones grabadas en lugar de parsear otra vez. */
+    public synchronized Semantico.Resultado getSemantico(Metricas metricas) {
+        if (semantico == null) {
+            getSintactico(metricas);
+            semantico = new Semantico(tokens).analizar(traza, metricas);
+            traza = null;   // ya no se necesita: el resultado semántico queda guardado
+        }
+        return semantico;
+    }
+
+    /** Léxico -> Parser -> Semántico, deteniéndose en la primera fase que falle. */
+    public synchronized ResultadoCompilacion getResultado(Metricas metricas) {
+        List<Token> t = getTokens(metricas);
+        if (!erroresLexicos.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (Diagnostico d : erroresLexicos) {
+                if (sb.length() > 0) sb.append('\n');
+                sb.append(d.mensaje);
+            }
+            return new ResultadoCompilacion(t, Metricas.Fase.LEXICO, sb.toString(), Collections.emptyList());
+        }
+
+        Parser.Resultado sin = getSintactico(metricas);
+        if (!sin.esCorrecto()) {
+            return new ResultadoCompilacion(t, Metricas.Fase.SINTACTICO, sin.getErrores(), Collections.emptyList());
+        }
+
+        Semantico.Resultado sem = getSemantico(metricas);
+        return new ResultadoCompilacion(t, sem.esCorrecto() ? null : Metricas.Fase.SEMANTICO,
+                sem.getErrores(), sem.getTablaSimbolos());
+    }
+}
@@ -0,0 +1,125 @@
+package data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/** Tabla de símbolos guardada por columnas: un arreglo primitivo por campo en lugar de un
+ * objeto por variable, y un índice de nombres con direccionamiento abierto en lugar de un
+ * HashMap. Cada símbolo ocupa 14 bytes en las columnas (más el texto de su expresión, si
+ * no es un solo literal); ya cerrada, la tabla de un análisis completo no guarda nada más.
+ *
+ * Semantico.Simbolo es solo una vista: se crea al pedir cada entrada.
+ */
+final class TablaSimbolos {
+
+    private static final Semantico.Tipo[] TIPOS = Semantico.Tipo.values();
+
+    private String[] nombres = new String[16];
+    private byte[] tipos = new byte[16];
+    private int[] direcciones = new int[16];
+    private byte[] estados = new byte[16];      // Semantico.Simbolo.SIN_VALOR, CONSTANTE o NO_CONSTANTE
+    private int[] valores = new int[16];        // constante (los boolean como 0 o 1)
+    private String[] textos;                    // texto de la expresión, si no se deduce del valor (null hasta que haga falta)
+    private int n;
+    private int siguienteDireccion;
+
+    // Índice de nombres: pares (posición + 1, hash) por ranura, 0 = libre; null después de cerrar()
+    private int[] indice = new int[64];
+
+    int size() { return n; }
+
+    /** Posición del símbolo 'nombre', o -1 si no está declarado. */
+    int buscar(String nombre) {
+        int h = mezclar(nombre.hashCode());
+        int mascara = indice.length - 2;
+        for (int r = h & mascara; ; r = (r + 2) & mascara) {
+            int p = indice[r];
+            if (p == 0) return -1;
+            if (indice[r + 1] == h && nombres[p - 1].equals(nombre)) return p - 1;
+        }
+    }
+
+    /** Agrega un símbolo que no está en la tabla y le asigna la siguiente dirección libre. */
+    int agregar(String nombre, Semantico.Tipo tipo) {
+        if (n == nombres.length) {
+            int tam = n * 2;
+            nombres = Arrays.copyOf(nombres, tam);
+            tipos = Arrays.copyOf(tipos, tam);
+            direcciones = Arrays.copyOf(direcciones, tam);
+            estados = Arrays.copyOf(estados, tam);
+            valores = Arrays.copyOf(valores, tam);
+            if (textos != null) textos = Arrays.copyOf(textos, tam);
+        }
+        nombres[n] = nombre;
+        tipos[n] = (byte) tipo.ordinal();
+        direcciones[n] = siguienteDireccion;
+        siguienteDireccion += tipo.tamano;
+        n++;
+        if (n * 4 > indice.length) {
+            indice = new int[indice.length * 2];
+            for (int i = 0; i < n; i++) indexar(i);
+        } else {
+            indexar(n - 1);
+        }
+        return n - 1;
+    }
+
+    private void indexar(int i) {
+        int h = mezclar(nombres[i].hashCode());
+        int mascara = indice.length - 2;
+        int r = h & mascara;
+        while (indice[r] != 0) r = (r + 2) & mascara;
+        indice[r] = i + 1;
+        indice[r + 1] = h;
+    }
+
+    /** Los hashCode de nombres como v1, v2, v3... son consecutivos: se mezclan los bits altos
+     * para que el sondeo lineal no forme rachas largas. */
+    private static int mezclar(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Recorta los arreglos al número de símbolos y suelta el índice de nombres: la tabla queda
+     * solo para leerla (con get o vista), como la que devuelve un análisis completo. */
+    void cerrar() {
+        indice = null;
+        if (nombres.length == n) return;
+        nombres = Arrays.copyOf(nombres, n);
+        tipos = Arrays.copyOf(tipos, n);
+        direcciones = Arrays.copyOf(direcciones, n);
+        estados = Arrays.copyOf(estados, n);
+        valores = Arrays.copyOf(valores, n);
+        if (textos != null) textos = Arrays.copyOf(textos, n);
+    }
+
+    String nombre(int i) { return nombres[i]; }
+    Semantico.Tipo tipo(int i) { return TIPOS[tipos[i]]; }
+
+    /** Guarda el valor asignado al símbolo i; 'texto' es null si se deduce del valor. */
+    void asignar(int i, byte estado, int valor, String texto) {
+        estados[i] = estado;
+        valores[i] = valor;
+        if (texto != null && textos == null) textos = new String[nombres.length];
+        if (textos != null) textos[i] = texto;
+    }
+
+    Semantico.Simbolo get(int i) {
+        return new Semantico.Simbolo(nombres[i], tipo(i), direcciones[i], estados[i], valores[i],
+                (textos != null) ? textos[i] : null);
+    }
+
+    /** Vista de solo lectura que refleja los cambios posteriores de la tabla. */
+    List<Semantico.Simbolo> vista() {
+        class Vista extends AbstractList<Semantico.Simbolo> implements RandomAccess {
+            @Override public Semantico.Simbolo get(int i) {
+                if (i < 0 || i >= n) throw new IndexOutOfBoundsException("Índice " + i + ", tamaño " + n);
+                return TablaSimbolos.this.get(i);
+            }
+            @Override public int size() { return n; }
+        }
+        return new Vista();
+    }
+}
@@ -9,12 +9,12 @@ public class Token {
 
     public final TokenTipo tipo;
     public final String valor;
-    public int codigo;
+    public final int codigo;
 
     public Token(TokenTipo tipo, String valor) {
         this.tipo = tipo;
         this.valor = valor;
-        this.codigo = 0;
+        this.codigo = Parser.codigoDe(tipo, valor);
     }
 
     public String toString() {
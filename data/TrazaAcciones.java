@@ -0,0 +1,82 @@
+package data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Graba, en orden, las acciones semánticas que el Parser invoca durante un análisis,
+ * para poder repetirlas después sobre otras AccionesSemanticas sin volver a parsear.
+ * Las listas de tokens que se graban son las vistas (subList) que entrega el Parser.
+ */
+final class TrazaAcciones implements AccionesSemanticas {
+
+    static final byte NOMBRE_CLASE = 0, DECLARAR = 1, USAR = 2,
+            ASIGNACION_ARIT = 3, ASIGNACION_BOOL = 4, CONDICION = 5;
+
+    private byte[] acciones = new byte[64];
+    private int[] indices = new int[64];
+    private Object[] primeros = new Object[64];    // nombre, o tokens de la expresión
+    private Object[] segundos = new Object[64];    // tipo, o tokens de la asignación
+    private int n;
+
+    private void agregar(byte accion, int indice, Object primero, Object segundo) {
+        if (n == acciones.length) {
+            int tam = n * 2;
+            acciones = Arrays.copyOf(acciones, tam);
+            indices = Arrays.copyOf(indices, tam);
+            primeros = Arrays.copyOf(primeros, tam);
+            segundos = Arrays.copyOf(segundos, tam);
+        }
+        acciones[n] = accion;
+        indices[n] = indice;
+        primeros[n] = primero;
+        segundos[n] = segundo;
+        n++;
+    }
+
+    int size() { return n; }
+
+    byte accion(int i)      { return acciones[i]; }
+    int indice(int i)       { return indices[i]; }
+    Object primero(int i)   { return primeros[i]; }
+    Object segundo(int i)   { return segundos[i]; }
+
+    @Override
+    public void registrarNombreClase(String nombre)                 { agregar(NOMBRE_CLASE, -1, nombre, null); }
+    @Override
+    public void declarar(String nombre, Semantico.Tipo tipo, int indice) { agregar(DECLARAR, indice, nombre, tipo); }
+    @Override
+    public void usar(String nombre, int indice)                     { agregar(USAR, indice, nombre, null); }
+    @Override
+    public void asignacionArit(String nombreVar, int indiceVar, List<Token> exprTokens) {
+        agregar(ASIGNACION_ARIT, indiceVar, nombreVar, exprTokens);
+    }
+    @Override
+    public void asignacionBool(String nombreVar, int indiceVar, List<Token> exprTokens) {
+        agregar(ASIGNACION_BOOL, indiceVar, nombreVar, exprTokens);
+    }
+    @Override
+    public void validarCondicionWhile(List<Token> exprTokens, int inicio) {
+        agregar(CONDICION, inicio, exprTokens, null);
+    }
+
+    /** Invoca sobre 'destino' las mismas acciones, con los mismos argumentos y en el mismo orden. */
+    void reproducir(AccionesSemanticas destino) {
+        reproducir(destino, 0, n);
+    }
+
+    /** Repite solo las acciones [desde, hasta). */
+    @SuppressWarnings("unchecked")
+    void reproducir(AccionesSemanticas destino, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            switch (acciones[i]) {
+                case NOMBRE_CLASE:    destino.registrarNombreClase((String) primeros[i]); break;
+                case DECLARAR:        destino.declarar((String) primeros[i], (Semantico.Tipo) segundos[i], indices[i]); break;
+                case USAR:            destino.usar((String) primeros[i], indices[i]); break;
+                case ASIGNACION_ARIT: destino.asignacionArit((String) primeros[i], indices[i], (List<Token>) segundos[i]); break;
+                case ASIGNACION_BOOL: destino.asignacionBool((String) primeros[i], indices[i], (List<Token>) segundos[i]); break;
+                case CONDICION:       destino.validarCondicionWhile((List<Token>) primeros[i], indices[i]); break;
+                default: throw new IllegalStateException("Acción desconocida: " + acciones[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package formato;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Arreglo de bytes que crece según se escribe, con enteros varint y textos UTF-8.
+ * Los métodos estáticos leen los mismos valores desde un ByteBuffer. */
+public class BufferBinario {
+
+    private byte[] buf;
+    private int n;
+
+    public BufferBinario(int capacidadInicial) { buf = new byte[Math.max(64, capacidadInicial)]; }
+
+    private void asegurar(int extra) {
+        if (n + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, n + extra));
+    }
+
+    /** Entero de 4 bytes (big-endian, igual que ByteBuffer.getInt). */
+    public void entero(int v) {
+        asegurar(4);
+        buf[n++] = (byte) (v >>> 24); buf[n++] = (byte) (v >>> 16);
+        buf[n++] = (byte) (v >>> 8);  buf[n++] = (byte) v;
+    }
+
+    /** Entero sin signo en 1 a 5 bytes (7 bits por byte). */
+    public void varint(int v) {
+        asegurar(5);
+        while ((v & ~0x7F) != 0) {
+            buf[n++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[n++] = (byte) v;
+    }
+
+    public void bytes(byte[] b) {
+        asegurar(b.length);
+        System.arraycopy(b, 0, buf, n, b.length);
+        n += b.length;
+    }
+
+    /** Longitud en varint seguida de los bytes UTF-8 (null se escribe como ""). */
+    public void texto(String s) {
+        byte[] b = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        varint(b.length);
+        bytes(b);
+    }
+
+    public int tamano()      { return n; }
+    public byte[] toArray()  { return Arrays.copyOf(buf, n); }
+
+    // ===========================
+    // Lectura
+    // ===========================
+
+    public static int leerVarint(ByteBuffer in) {
+        int valor = 0;
+        for (int corrimiento = 0; ; corrimiento += 7) {
+            byte b = in.get();
+            valor |= (b & 0x7F) << corrimiento;
+            if (b >= 0) return valor;
+        }
+    }
+
+    public static String leerTexto(ByteBuffer in) {
+        int n = leerVarint(in);
+        byte[] b = new byte[n];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** Salta un texto sin decodificarlo. */
+    public static void saltarTexto(ByteBuffer in) {
+        int n = leerVarint(in);
+        in.position(in.position() + n);
+    }
+}
@@ -0,0 +1,100 @@
+package formato;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import data.Semantico;
+import data.Token;
+
+/** Escribe el flujo de tokens y la tabla de símbolos en el formato binario versionado:
+ *
+ *   magia "MJTB" (4 bytes), versión (varint)
+ *   lexemas:  cantidad, y cada uno como longitud + UTF-8 (sin repetir)
+ *   tokens:   cantidad, y por token tipo, código e índice de su lexema (varints)
+ *   símbolos: cantidad, y por símbolo el índice de su nombre, el tipo (ordinal de Semantico.Tipo),
+ *             la dirección, el estado y el valor, y el índice + 1 del texto de la expresión
+ *             (0 si el texto es el del valor constante o no hay) (varints)
+ *
+ * Los lexemas y los nombres y expresiones de la tabla de símbolos comparten la misma tabla de cadenas,
+ * así que cada "+", ";" o nombre de variable se guarda una sola vez. Se lee con LectorBinario.
+ */
+public class EscritorBinario {
+
+    public static final int MAGIA = 0x4D4A5442;   // "MJTB"
+    public static final int VERSION = 2;
+
+    private EscritorBinario() { }
+
+    public static byte[] codificar(List<Token> tokens, List<Semantico.Simbolo> simbolos) {
+        BufferBinario out = new BufferBinario(16 + tokens.size() * 3);
+        codificar(tokens, simbolos, out);
+        return out.toArray();
+    }
+
+    /** Agrega la codificación al final de 'out' (para incrustarla en otros formatos, como la caché). */
+    public static void codificar(List<Token> tokens, List<Semantico.Simbolo> simbolos, BufferBinario out) {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> cadenas = new ArrayList<>();
+        int[] lexema = new int[tokens.size()];
+        for (int i = 0; i < lexema.length; i++) lexema[i] = indice(tokens.get(i).valor, indices, cadenas);
+        Semantico.Simbolo[] tabla = simbolos.toArray(new Semantico.Simbolo[0]);
+        int[] textosSimbolos = new int[tabla.length * 2];
+        for (int i = 0; i < tabla.length; i++) {
+            Semantico.Simbolo s = tabla[i];
+            textosSimbolos[i * 2] = indice(s.nombre, indices, cadenas);
+            textosSimbolos[i * 2 + 1] = (s.getExpresion() != null) ? indice(s.getExpresion(), indices, cadenas) + 1 : 0;
+        }
+
+        out.entero(MAGIA);
+        out.varint(VERSION);
+
+        out.varint(cadenas.size());
+        for (String c : cadenas) out.texto(c);
+
+        out.varint(lexema.length);
+        for (int i = 0; i < lexema.length; i++) {
+            Token t = tokens.get(i);
+            out.varint(t.tipo.ordinal());
+            out.varint(t.codigo);
+            out.varint(lexema[i]);
+        }
+
+        out.varint(tabla.length);
+        for (int i = 0; i < tabla.length; i++) {
+            Semantico.Simbolo s = tabla[i];
+            out.varint(textosSimbolos[i * 2]);
+            out.varint(s.tipo.ordinal());
+            out.varint(s.direccion);
+            out.varint(s.estado);
+            out.varint(s.getEntero());
+            out.varint(textosSimbolos[i * 2 + 1]);
+        }
+    }
+
+    public static void escribir(List<Token> tokens, List<Semantico.Simbolo> simbolos, OutputStream destino)
+            throws IOException {
+        destino.write(codificar(tokens, simbolos));
+    }
+
+    public static void escribir(List<Token> tokens, List<Semantico.Simbolo> simbolos, Path archivo)
+            throws IOException {
+        Files.write(archivo, codificar(tokens, simbolos));
+    }
+
+    private static int indice(String s, Map<String, Integer> indices, List<String> cadenas) {
+        String clave = (s != null) ? s : "";
+        Integer idx = indices.get(clave);
+        if (idx == null) {
+            idx = cadenas.size();
+            indices.put(clave, idx);
+            cadenas.add(clave);
+        }
+        return idx;
+    }
+}
@@ -0,0 +1,197 @@
+package formato;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import data.Diagnostico;
+import data.Metricas;
+import data.Semantico;
+import data.Token;
+
+/** Escribe resultados del compilador como NDJSON: un objeto JSON por línea, en cuanto se producen.
+ *
+ *   {"registro":"archivo","nombre":"tests/ProgramaEjemplo.txt"}
+ *   {"registro":"token","indice":0,"posicion":0,"tipo":"PalabraReservada","valor":"class","codigo":1}
+ *   {"registro":"diagnostico","fase":"SINTACTICO","mensaje":"...","token":12}
+ *   {"registro":"simbolo","nombre":"x","tipo":"int","valor":"2 * 3","constante":6,"direccion":0}
+ *   {"registro":"resumen","tokens":57,"correcto":false,"faseFallida":"SEMANTICO"}
+ *   {"registro":"resumen","tokens":57,"fase":"LEXICO","erroresLexicos":0}     (solo se corrió el Léxico)
+ *
+ * Los caracteres se acumulan en un buffer propio y se escapan uno por uno, sin armar cadenas
+ * intermedias; los números se escriben dígito por dígito. La memoria no depende de cuántos
+ * registros se escriban.
+ */
+public class EscritorNdjson implements Flushable, Closeable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer destino;
+    private final char[] buffer = new char[8192];
+    private int usado;
+
+    public EscritorNdjson(Writer destino) {
+        this.destino = destino;
+    }
+
+    /** Primer registro de cada programa, cuando se escriben varios en el mismo flujo. */
+    public void archivo(String nombre) throws IOException {
+        texto("{\"registro\":\"archivo\",\"nombre\":");
+        cadena(nombre);
+        texto("}\n");
+    }
+
+    public void token(long indice, Token t, long posicion) throws IOException {
+        texto("{\"registro\":\"token\",\"indice\":");
+        numero(indice);
+        texto(",\"posicion\":");
+        numero(posicion);
+        texto(",\"tipo\":");
+        cadena(t.tipo.name());
+        texto(",\"valor\":");
+        cadena(t.valor);
+        texto(",\"codigo\":");
+        numero(t.codigo);
+        texto("}\n");
+    }
+
+    public void diagnostico(Diagnostico d) throws IOException {
+        diagnostico(d.fase, d.mensaje, d.indiceToken);
+    }
+
+    /** Para los errores léxicos de un flujo de tokens, cuyo índice puede pasar de Integer.MAX_VALUE. */
+    public void diagnostico(Metricas.Fase fase, String mensaje, long indiceToken) throws IOException {
+        texto("{\"registro\":\"diagnostico\",\"fase\":");
+        cadena(fase.name());
+        texto(",\"mensaje\":");
+        cadena(mensaje);
+        texto(",\"token\":");
+        numero(indiceToken);
+        texto("}\n");
+    }
+
+    public void simbolo(Semantico.Simbolo s) throws IOException {
+        texto("{\"registro\":\"simbolo\",\"nombre\":");
+        cadena(s.nombre);
+        texto(",\"tipo\":");
+        cadena(s.tipo.nombre);
+        texto(",\"valor\":");
+        cadena(s.getValor());
+        texto(",\"constante\":");      // null si no se asignó o la expresión usa variables
+        if (!s.esConstante()) texto("null");
+        else if (s.tipo == Semantico.Tipo.BOOLEAN) texto(s.getBooleano() ? "true" : "false");
+        else numero(s.getEntero());
+        texto(",\"direccion\":");
+        numero(s.direccion);
+        texto("}\n");
+    }
+
+    /** Último registro de un programa; 'faseFallida' es null si compiló sin errores. */
+    public void resumen(long tokens, Metricas.Fase faseFallida) throws IOException {
+        texto("{\"registro\":\"resumen\",\"tokens\":");
+        numero(tokens);
+        texto(",\"correcto\":");
+        texto(faseFallida == null ? "true" : "false");
+        texto(",\"faseFallida\":");
+        if (faseFallida == null) texto("null");
+        else cadena(faseFallida.name());
+        texto("}\n");
+    }
+
+    /** Último registro de un programa del que solo se corrió el Léxico: no dice si es correcto. */
+    public void resumenLexico(long tokens, long erroresLexicos) throws IOException {
+        texto("{\"registro\":\"resumen\",\"tokens\":");
+        numero(tokens);
+        texto(",\"fase\":\"LEXICO\",\"erroresLexicos\":");
+        numero(erroresLexicos);
+        texto("}\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        destino.write(buffer, 0, usado);
+        usado = 0;
+        destino.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        destino.close();
+    }
+
+    // ===========================
+    // Escritura
+    // ===========================
+
+    private void caracter(char c) throws IOException {
+        if (usado == buffer.length) {
+            destino.write(buffer, 0, usado);
+            usado = 0;
+        }
+        buffer[usado++] = c;
+    }
+
+    /** Texto que ya es JSON válido (llaves, nombres de campo, literales). */
+    private void texto(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) caracter(s.charAt(i));
+    }
+
+    /** Cadena JSON entre comillas, con los escapes necesarios (null se escribe como null). */
+    private void cadena(String s) throws IOException {
+        if (s == null) {
+            texto("null");
+            return;
+        }
+        caracter('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  caracter('\\'); caracter('"'); break;
+                case '\\': caracter('\\'); caracter('\\'); break;
+                case '\n': caracter('\\'); caracter('n'); break;
+                case '\r': caracter('\\'); caracter('r'); break;
+                case '\t': caracter('\\'); caracter('t'); break;
+                default:
+                    if (c < 0x20) {
+                        caracter('\\'); caracter('u'); caracter('0'); caracter('0');
+                        caracter(HEX[c >> 4]); caracter(HEX[c & 0xF]);
+                    } else {
+                        caracter(c);
+                    }
+            }
+        }
+        caracter('"');
+    }
+
+    private void numero(long n) throws IOException {
+        if (n == Long.MIN_VALUE) {
+            texto("-9223372036854775808");
+            return;
+        }
+        if (n < 0) {
+            caracter('-');
+            n = -n;
+        }
+        if (n < 10) {
+            caracter((char) ('0' + n));
+            return;
+        }
+        // Los dígitos salen al revés: se escriben en el buffer y se invierten en su lugar
+        if (buffer.length - usado < 20) {
+            destino.write(buffer, 0, usado);
+            usado = 0;
+        }
+        int inicio = usado;
+        while (n > 0) {
+            buffer[usado++] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        for (int i = inicio, j = usado - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+    }
+}
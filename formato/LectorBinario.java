@@ -0,0 +1,126 @@
+package formato;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import data.Semantico;
+import data.Token;
+
+/** Lee el formato de EscritorBinario sin crear un objeto Token por entrada.
+ *
+ * Al abrirse recorre los varints una sola vez y deja tipo, código y lexema de cada token
+ * en arreglos primitivos (6 bytes por token). Las cadenas se quedan en el buffer (que puede
+ * ser un archivo mapeado en memoria) y solo se decodifican la primera vez que se piden.
+ */
+public class LectorBinario {
+
+    private static final Token.TokenTipo[] TIPOS = Token.TokenTipo.values();
+
+    private final ByteBuffer datos;
+    private final int[] inicioCadena;       // posición de los bytes UTF-8 de cada cadena
+    private final int[] longitudCadena;
+    private final String[] cadenas;         // se llenan al pedirlas
+
+    private final byte[] tipos;
+    private final byte[] codigos;
+    private final int[] lexemas;
+
+    private static final Semantico.Tipo[] TIPOS_SIMBOLO = Semantico.Tipo.values();
+    private static final int CAMPOS_SIMBOLO = 6;
+
+    private final int[] simbolos;           // nombre, tipo, dirección, estado, valor y expresión + 1 por símbolo
+
+    /** Lee desde la posición actual de 'buffer' (no la modifica). */
+    public LectorBinario(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate();
+        if (in.remaining() < 5 || in.getInt() != EscritorBinario.MAGIA) {
+            throw new IllegalArgumentException("No es un flujo de tokens MicroJava (falta la marca MJTB)");
+        }
+        int version = BufferBinario.leerVarint(in);
+        if (version != EscritorBinario.VERSION) {
+            throw new IllegalArgumentException("Versión de formato no soportada: " + version);
+        }
+        datos = in;
+
+        int numCadenas = BufferBinario.leerVarint(in);
+        inicioCadena = new int[numCadenas];
+        longitudCadena = new int[numCadenas];
+        cadenas = new String[numCadenas];
+        for (int i = 0; i < numCadenas; i++) {
+            longitudCadena[i] = BufferBinario.leerVarint(in);
+            inicioCadena[i] = in.position();
+            in.position(in.position() + longitudCadena[i]);
+        }
+
+        int numTokens = BufferBinario.leerVarint(in);
+        tipos = new byte[numTokens];
+        codigos = new byte[numTokens];
+        lexemas = new int[numTokens];
+        for (int i = 0; i < numTokens; i++) {
+            tipos[i] = (byte) BufferBinario.leerVarint(in);
+            codigos[i] = (byte) BufferBinario.leerVarint(in);
+            lexemas[i] = BufferBinario.leerVarint(in);
+        }
+
+        int numSimbolos = BufferBinario.leerVarint(in);
+        simbolos = new int[numSimbolos * CAMPOS_SIMBOLO];
+        for (int i = 0; i < simbolos.length; i++) simbolos[i] = BufferBinario.leerVarint(in);
+    }
+
+    /** Mapea el archivo en memoria y lo lee sin copiarlo al heap. */
+    public static LectorBinario abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return new LectorBinario(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    public int getNumTokens()                 { return tipos.length; }
+    public Token.TokenTipo getTipo(int i)     { return TIPOS[tipos[i]]; }
+    public int getCodigo(int i)               { return codigos[i]; }
+    public String getLexema(int i)            { return cadena(lexemas[i]); }
+
+    /** Crea el Token de la posición i. */
+    public Token getToken(int i) {
+        return new Token(getTipo(i), getLexema(i));
+    }
+
+    /** Vista de solo lectura que crea cada Token al pedirlo. */
+    public List<Token> getTokens() {
+        class Vista extends AbstractList<Token> implements RandomAccess {
+            @Override public Token get(int i) { return getToken(i); }
+            @Override public int size()       { return tipos.length; }
+        }
+        return new Vista();
+    }
+
+    public int getNumSimbolos() { return simbolos.length / CAMPOS_SIMBOLO; }
+
+    public List<Semantico.Simbolo> getTablaSimbolos() {
+        List<Semantico.Simbolo> tabla = new ArrayList<>(getNumSimbolos());
+        for (int i = 0; i < simbolos.length; i += CAMPOS_SIMBOLO) {
+            int expresion = simbolos[i + 5];
+            tabla.add(new Semantico.Simbolo(cadena(simbolos[i]), TIPOS_SIMBOLO[simbolos[i + 1]], simbolos[i + 2],
+                    (byte) simbolos[i + 3], simbolos[i + 4], (expresion > 0) ? cadena(expresion - 1) : null));
+        }
+        return tabla;
+    }
+
+    private String cadena(int i) {
+        String s = cadenas[i];
+        if (s == null) {
+            byte[] b = new byte[longitudCadena[i]];
+            datos.get(inicioCadena[i], b);
+            s = new String(b, StandardCharsets.UTF_8);
+            cadenas[i] = s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,270 @@
+package herramientas;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/** Generador de programas MicroJava sintéticos para pruebas de carga y escalamiento.
+ * Sigue la gramática documentada en data.Parser:
+ *   Programa → class Identificador { ListaDeclaración ListaSentencias } EOF
+ * La salida se escribe en flujo (no se guarda el programa en memoria), así que
+ * puede producir archivos de varios GB con memoria constante.
+ * Con la misma semilla y las mismas opciones siempre se genera el mismo programa.
+ */
+public class GeneradorPrograma {
+
+    private int declaraciones = 10;
+    private long sentencias = 100;
+    private long tamanoObjetivo = 0;     // en caracteres; si es > 0 manda sobre 'sentencias'
+    private int profundidad = 3;
+    private int longitudExpresion = 3;
+    private double densidadErrores = 0.0;
+    private long semilla = 42;
+
+    private Writer salida;
+    private SplittableRandom aleatorio;
+    private long escritos;
+    private long erroresInyectados;
+
+    public GeneradorPrograma setDeclaraciones(int n)        { declaraciones = Math.max(1, n); return this; }
+    public GeneradorPrograma setSentencias(long n)          { sentencias = Math.max(0, n); return this; }
+    public GeneradorPrograma setTamanoObjetivo(long n)      { tamanoObjetivo = Math.max(0, n); return this; }
+    public GeneradorPrograma setProfundidad(int n)          { profundidad = Math.max(0, n); return this; }
+    public GeneradorPrograma setLongitudExpresion(int n)    { longitudExpresion = Math.max(1, n); return this; }
+    public GeneradorPrograma setDensidadErrores(double d)   { densidadErrores = Math.max(0.0, Math.min(1.0, d)); return this; }
+    public GeneradorPrograma setSemilla(long s)             { semilla = s; return this; }
+
+    /** Cantidad de caracteres escritos por la última llamada a generar(). */
+    public long getCaracteresEscritos() { return escritos; }
+    /** Cantidad de errores inyectados a propósito en la última llamada a generar(). */
+    public long getErroresInyectados()  { return erroresInyectados; }
+
+    /** Genera el programa completo en un String (solo para tamaños pequeños). */
+    public String generar() {
+        StringWriter sw = new StringWriter();
+        try {
+            generar(sw);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter no lanza IOException
+        }
+        return sw.toString();
+    }
+
+    /** Escribe el programa en 'destino' sin acumularlo en memoria. */
+    public void generar(Writer destino) throws IOException {
+        salida = (destino instanceof BufferedWriter || destino instanceof StringWriter)
+                ? destino : new BufferedWriter(destino, 1 << 16);
+        aleatorio = new SplittableRandom(semilla);
+        escritos = 0;
+        erroresInyectados = 0;
+
+        escribir("class Generado {\n");
+        for (int i = 0; i < declaraciones; i++) {
+            escribir(esBooleana(i) ? "    boolean " : "    int ");
+            escribir(nombreVariable(i));
+            escribir(";\n");
+        }
+
+        if (tamanoObjetivo > 0) {
+            while (escritos < tamanoObjetivo) sentencia(1, profundidad);
+        } else {
+            for (long s = 0; s < sentencias; s++) sentencia(1, profundidad);
+        }
+
+        escribir("}\nEOF\n");
+        salida.flush();
+    }
+
+    // ===========================
+    // Producciones de la gramática
+    // ===========================
+
+    /** Sentencias → while (ExpresionBooleana){ListaSentencias} | Identificador=Expresion; | Identificador=ExpresionBooleana; */
+    private void sentencia(int nivel, int anidamientoRestante) throws IOException {
+        if (inyectarError()) {
+            sentenciaErronea(nivel);
+            return;
+        }
+        int eleccion = aleatorio.nextInt(10);
+        if (anidamientoRestante > 0 && eleccion < 3) {
+            sentenciaWhile(nivel, anidamientoRestante);
+        } else if (hayBooleanas() && eleccion < 5) {
+            sangria(nivel);
+            escribir(variableBooleana());
+            escribir(" = ");
+            expresionBooleana();
+            escribir(";\n");
+        } else {
+            sangria(nivel);
+            escribir(variableEntera());
+            escribir(" = ");
+            expresion();
+            escribir(";\n");
+        }
+    }
+
+    /** while ( ExpresionBooleana ) { ListaSentencias }
+     * Solo la primera sentencia del cuerpo puede anidar otro while, así el tamaño
+     * crece linealmente con la profundidad y no de forma exponencial. */
+    private void sentenciaWhile(int nivel, int anidamientoRestante) throws IOException {
+        sangria(nivel);
+        escribir("while (");
+        expresionBooleana();
+        escribir(") {\n");
+        int cuerpo = 1 + aleatorio.nextInt(3);
+        for (int i = 0; i < cuerpo; i++) {
+            sentencia(nivel + 1, (i == 0) ? anidamientoRestante - 1 : 0);
+        }
+        sangria(nivel);
+        escribir("}\n");
+    }
+
+    /** ExpresionBooleana → Expresion CMP Expresion | true | false */
+    private void expresionBooleana() throws IOException {
+        int eleccion = aleatorio.nextInt(10);
+        if (eleccion == 0) { escribir("true"); return; }
+        if (eleccion == 1) { escribir("false"); return; }
+        expresion();
+        escribir(aleatorio.nextBoolean() ? " < " : " > ");
+        expresion();
+    }
+
+    /** Expresion → Termino [[OP Termino]]* */
+    private void expresion() throws IOException {
+        int terminos = 1 + aleatorio.nextInt(longitudExpresion);
+        for (int i = 0; i < terminos; i++) {
+            if (i > 0) {
+                int op = aleatorio.nextInt(3);
+                escribir(op == 0 ? " + " : op == 1 ? " - " : " * ");
+            }
+            termino();
+        }
+    }
+
+    /** Termino → Identificador (int) | NumEntero */
+    private void termino() throws IOException {
+        if (aleatorio.nextBoolean()) escribir(variableEntera());
+        else escribir(Integer.toString(aleatorio.nextInt(1000)));
+    }
+
+    /** Sentencia con un error deliberado: léxico, sintáctico o semántico. */
+    private void sentenciaErronea(int nivel) throws IOException {
+        erroresInyectados++;
+        sangria(nivel);
+        switch (aleatorio.nextInt(4)) {
+            case 0: // Error léxico: símbolo que el Scanner no reconoce
+                escribir(variableEntera());
+                escribir(" = 1 # 2;\n");
+                break;
+            case 1: // Error sintáctico: falta el punto y coma
+                escribir(variableEntera());
+                escribir(" = ");
+                expresion();
+                escribir("\n");
+                break;
+            case 2: // Error semántico: variable no declarada
+                escribir("noDeclarada");
+                escribir(Long.toString(erroresInyectados));
+                escribir(" = 1;\n");
+                break;
+            default: // Error semántico: tipos incompatibles
+                if (hayBooleanas()) {
+                    escribir(variableBooleana());
+                    escribir(" = ");
+                    expresion();
+                } else {
+                    escribir(variableEntera());
+                    escribir(" = true");
+                }
+                escribir(";\n");
+                break;
+        }
+    }
+
+    // ===========================
+    // Utilidades
+    // ===========================
+
+    private boolean inyectarError() {
+        return densidadErrores > 0 && aleatorio.nextDouble() < densidadErrores;
+    }
+
+    // Una de cada cuatro variables es boolean; el resto int
+    private boolean esBooleana(int i) { return i % 4 == 3; }
+    private boolean hayBooleanas()    { return declaraciones > 3; }
+
+    private String nombreVariable(int i) { return (esBooleana(i) ? "b" : "v") + i; }
+
+    private String variableEntera() {
+        int i = aleatorio.nextInt(declaraciones);
+        if (esBooleana(i)) i--;
+        return nombreVariable(i);
+    }
+
+    private String variableBooleana() {
+        int grupos = declaraciones / 4;
+        return nombreVariable(aleatorio.nextInt(grupos) * 4 + 3);
+    }
+
+    private void sangria(int nivel) throws IOException {
+        for (int i = 0; i < nivel; i++) escribir("    ");
+    }
+
+    private void escribir(String s) throws IOException {
+        salida.write(s);
+        escritos += s.length();
+    }
+
+    /** Convierte "64K", "10M" o "2G" a número de caracteres. */
+    static long parsearTamano(String texto) {
+        String t = texto.trim().toUpperCase();
+        long factor = 1;
+        if (t.endsWith("K")) factor = 1024L;
+        else if (t.endsWith("M")) factor = 1024L * 1024;
+        else if (t.endsWith("G")) factor = 1024L * 1024 * 1024;
+        if (factor > 1) t = t.substring(0, t.length() - 1);
+        return Long.parseLong(t) * factor;
+    }
+
+    /** Uso: java herramientas.GeneradorPrograma [opciones]
+     *   --declaraciones N   --sentencias N   --tamano 64K|10M|2G
+     *   --profundidad N     --longitud-expresion N
+     *   --errores D (0..1)  --semilla S      -o archivo (por defecto la salida estándar)
+     */
+    public static void main(String[] args) throws IOException {
+        GeneradorPrograma gen = new GeneradorPrograma();
+        String archivo = null;
+        for (int i = 0; i < args.length; i++) {
+            String op = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Falta el valor de " + op);
+            String valor = args[++i];
+            switch (op) {
+                case "--declaraciones":       gen.setDeclaraciones(Integer.parseInt(valor)); break;
+                case "--sentencias":          gen.setSentencias(Long.parseLong(valor)); break;
+                case "--tamano":              gen.setTamanoObjetivo(parsearTamano(valor)); break;
+                case "--profundidad":         gen.setProfundidad(Integer.parseInt(valor)); break;
+                case "--longitud-expresion":  gen.setLongitudExpresion(Integer.parseInt(valor)); break;
+                case "--errores":             gen.setDensidadErrores(Double.parseDouble(valor)); break;
+                case "--semilla":             gen.setSemilla(Long.parseLong(valor)); break;
+                case "-o":                    archivo = valor; break;
+                default: throw new IllegalArgumentException("Opción desconocida: " + op);
+            }
+        }
+
+        Writer w = (archivo == null)
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(new FileOutputStream(archivo), StandardCharsets.UTF_8);
+        try (Writer destino = new BufferedWriter(w, 1 << 16)) {
+            gen.generar(destino);
+        }
+        if (archivo != null) {
+            System.err.println("Generados " + gen.getCaracteresEscritos() + " caracteres, "
+                    + gen.getErroresInyectados() + " error(es) inyectado(s) -> " + archivo);
+        }
+    }
+}
@@ -3,13 +3,20 @@ package interfaz;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
-import data.Scanner;
+import java.util.concurrent.ExecutionException;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import analisis.AnalizadorCiclos;
+import analisis.AnalizadorFlujo;
+import analisis.InformeCiclo;
+import data.Diagnostico;
+import data.Metricas;
 import data.Semantico;
+import data.SesionCompilacion;
 import data.Parser;
 import data.Token;
 
@@ -21,12 +28,11 @@ public class Interface extends JFrame {
     private JTextArea areaCodigo = new JTextArea();
     private JTextArea areaErrores = new JTextArea();
 
+    // Barra de estado (métricas de la última fase ejecutada)
+    private JLabel estado = new JLabel(" ");
+
     // Tabla de símbolos
-    private DefaultTableModel modeloTabla = new DefaultTableModel(
-            new Object[]{"Tipo", "Token"}, 0) {
-        private static final long serialVersionUID = 1L;
-        @Override public boolean isCellEditable(int r, int c) { return false; }
-    };
+    private ModeloTablaTokens modeloTabla = new ModeloTablaTokens();
     private JTable tablaTokens = new JTable(modeloTabla);
 
     // Botones
@@ -34,8 +40,15 @@ public class Interface extends JFrame {
     private JButton btnParser;
     private JButton btnSemantico;
 
-    // Ultima lista de tokens
-    private List<Token> ultimaLista;     // tokens del último análisis léxico
+    // Fases ya calculadas para el código actual: presionar Semántico después de Parser no vuelve a parsear.
+    // Cada código tiene su propia sesión, así que un análisis nuevo no espera a uno cancelado de otro código.
+    private SesionCompilacion sesion = new SesionCompilacion("");
+    private String codigoSesion = "";
+
+    // Análisis en segundo plano: se lanza RETARDO_MS después de la última edición
+    private static final int RETARDO_MS = 400;
+    private final Timer temporizador = new Timer(RETARDO_MS, e -> lanzarAnalisis(Metricas.Fase.SEMANTICO));
+    private Analisis analisisActual;     // análisis en curso (solo se toca desde el EDT)
 
     public Interface() {
         super("MicroJavaCompiler");
@@ -64,6 +77,12 @@ public class Interface extends JFrame {
         panelPrograma.setBorder(new TitledBorder("Programa"));
         ((TitledBorder)panelPrograma.getBorder()).setTitleFont(new Font("SansSerif", Font.BOLD, 22));
         areaCodigo.setFont(new Font("Consolas", Font.PLAIN, 22));
+        temporizador.setRepeats(false);
+        areaCodigo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e)  { codigoEditado(); }
+            @Override public void removeUpdate(DocumentEvent e)  { codigoEditado(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
         panelPrograma.add(new JScrollPane(areaCodigo), BorderLayout.CENTER);
 
         // Tokens
@@ -128,131 +147,153 @@ public class Interface extends JFrame {
         getContentPane().setLayout(new BorderLayout(10, 10));
         getContentPane().add(norte, BorderLayout.NORTH);
         getContentPane().add(centro, BorderLayout.CENTER);
+
+        estado.setFont(new Font("SansSerif", Font.PLAIN, 16));
+        estado.setBorder(BorderFactory.createEmptyBorder(4, 20, 8, 20));
+        getContentPane().add(estado, BorderLayout.SOUTH);
     }
 
-    private void analizarLexico() {
-        modeloTabla.setRowCount(0);
-        areaErrores.setText("");
-        areaErrores.setForeground(Color.BLACK);
-        areaErrores.setFont(new Font("Consolas", Font.PLAIN, 22));
+    /** Botón Tokens: solo análisis léxico. */
+    private void analizarLexico() { lanzarAnalisis(Metricas.Fase.LEXICO); }
 
-        String codigo = areaCodigo.getText();
-        Scanner analizador = new Scanner(codigo);
+    /** Botón Parser: léxico + sintáctico sobre el código actual. */
+    private void ejecutarParser() { lanzarAnalisis(Metricas.Fase.SINTACTICO); }
 
-        int errores = 0;
-        StringBuilder sb = new StringBuilder();
-        List<Token> tmp = new ArrayList<>();
+    /** Botón Semantico: las tres fases. */
+    private void ejecutarSemantico() { lanzarAnalisis(Metricas.Fase.SEMANTICO); }
 
-        while (true) {
-            Token tk = analizador.siguienteToken();
-            if (tk == null) break;
-            tmp.add(tk);
+    // Cada edición cancela el análisis en curso y reinicia la espera
+    private void codigoEditado() {
+        cancelarAnalisis();
+        temporizador.restart();
+    }
 
-            // Agregamos TODAS las filas
-            modeloTabla.addRow(new Object[]{ tk.tipo, tk.valor});
+    private void cancelarAnalisis() {
+        if (analisisActual != null) {
+            analisisActual.cancel(true);
+            analisisActual = null;
+        }
+    }
 
-            if (tk.tipo == Token.TokenTipo.Invalido) {
-                errores++;
-                sb.append("Error léxico: token inválido -> ").append(tk.valor).append('\n');
-            }
+    private void lanzarAnalisis(Metricas.Fase hasta) {
+        temporizador.stop();
+        cancelarAnalisis();
+        estado.setText("Analizando...");
+        String codigo = areaCodigo.getText();
+        if (!codigo.equals(codigoSesion)) {
+            sesion = new SesionCompilacion(codigo);
+            codigoSesion = codigo;
         }
+        analisisActual = new Analisis(sesion, hasta);
+        analisisActual.execute();
+    }
 
-        // Deshabilitar botones de Parser y Semántico hasta que el léxico esté correcto
-        btnParser.setEnabled(false);
-        btnSemantico.setEnabled(false);
-        areaErrores.setVisible(true);
+    /** Publica el resultado de un análisis en la tabla, el área de errores y la barra de estado. */
+    private void mostrar(Resultado r) {
+        modeloTabla.setTokens(r.tokens);
 
-        ultimaLista = tmp;
+        // Parser se habilita cuando el léxico está correcto y Semántico cuando el Parser está correcto
+        btnParser.setEnabled(r.erroresLexicos == 0);
+        btnSemantico.setEnabled(Boolean.TRUE.equals(r.sintacticoOk));
+        areaErrores.setVisible(true);
 
-        /** Asignar Codigos a cada uno de los tokens 
-        Parser p = new Parser(tmp);
-        p.asignarCodigos();   // solo codifica, no parsea
-        
-        modeloTabla.setRowCount(0);
-        for (Token tk : ultimaLista) {
-            modeloTabla.addRow(new Object[]{ tk.tipo, tk.valor, tk.codigo });
-        }
-        */
-
-        if (errores > 0) {
-            areaErrores.setForeground(Color.RED);
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText(sb.toString());
-            btnParser.setEnabled(false); // Habilitar Parser cuando Lexico este correcto
-            JOptionPane.showMessageDialog(this,
-                    "Se detectaron " + errores + " error(es) léxico(s).",
-                    "Análisis con errores",
-                    JOptionPane.WARNING_MESSAGE);
+        if (r.erroresLexicos > 0) {
+            mostrarErrores(r.errores.toString());
+        } else if (r.sintacticoOk == null) {
+            mostrarExito("Análisis léxico correcto.\n");
+        } else if (!r.sintacticoOk) {
+            mostrarErrores("SYNTAX ERROR\n\n" + r.errores);
+        } else if (r.semanticoOk == null) {
+            mostrarExito("Análisis sintáctico correcto.\n");
+        } else if (!r.semanticoOk) {
+            mostrarErrores("SEMANTIC ERROR\n\n" + r.errores);
         } else {
-            areaErrores.setForeground(new Color(0, 128, 0));
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText("Análisis léxico correcto.\n");
-            btnParser.setEnabled(true);
-            JOptionPane.showMessageDialog(this,
-                    "Análisis léxico correcto.",
-                    "Éxito", JOptionPane.INFORMATION_MESSAGE);
+            mostrarExito("Análisis semántico correcto.\n" + r.avisos);
         }
-        tablaTokens.repaint();
+        estado.setText(r.metricas.resumenCorto());
     }
 
-    /** Llama a Parser.analizar() y muestra resultado en CI y Errores. */
-    private void ejecutarParser() {
-        if (ultimaLista == null) {
-            JOptionPane.showMessageDialog(this,
-                    "Primero ejecuta Tokens.",
-                    "Información", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-        Parser p = new Parser(ultimaLista);
-        boolean exito = p.analizar(null); 
+    private void mostrarExito(String texto) {
+        areaErrores.setForeground(new Color(0, 128, 0));
+        areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
+        areaErrores.setText(texto);
+    }
 
-        btnSemantico.setEnabled(false); // Deshabilitar Semántico hasta que Parser este correcto
-        areaErrores.setVisible(true);
+    private void mostrarErrores(String texto) {
+        areaErrores.setForeground(Color.RED);
+        areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
+        areaErrores.setText(texto);
+    }
 
-        if (exito) {
-            areaErrores.setForeground(new Color(0, 128, 0));
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText("Análisis sintáctico correcto.\n");
-            btnSemantico.setEnabled(true); // Habilitar Semántico cuando Parser este correcto
-            JOptionPane.showMessageDialog(this,
-                    "El análisis sintáctico se completó sin errores.",
-                    "Éxito", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            areaErrores.setForeground(Color.RED);
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText("SYNTAX ERROR\n\n" + p.getErrores());
-            JOptionPane.showMessageDialog(this,
-                    "Se encontraron errores sintácticos.",
-                    "Errores", JOptionPane.ERROR_MESSAGE);
-        }
+    /** Lo que produce un análisis; null en sintacticoOk/semanticoOk significa que esa fase no se ejecutó. */
+    private static class Resultado {
+        final Metricas metricas = new Metricas();
+        List<Token> tokens = Collections.emptyList();
+        final StringBuilder errores = new StringBuilder();
+        final StringBuilder avisos = new StringBuilder();
+        int erroresLexicos;
+        Boolean sintacticoOk;
+        Boolean semanticoOk;
     }
 
-    // Llama a Semantico.analizar()
-    private void ejecutarSemantico() {
-        if (ultimaLista == null) {
-            JOptionPane.showMessageDialog(this,
-                    "Primero ejecuta Tokens.",
-                    "Información", JOptionPane.INFORMATION_MESSAGE);
-            return;
+    /** Ejecuta las fases fuera del EDT hasta la fase indicada (o hasta la primera que falle).
+     * Si se cancela, las fases que faltan no se ejecutan y el resultado se descarta. */
+    private class Analisis extends SwingWorker<Resultado, Void> {
+        private final SesionCompilacion sesion;
+        private final Metricas.Fase hasta;
+
+        Analisis(SesionCompilacion sesion, Metricas.Fase hasta) {
+            this.sesion = sesion;
+            this.hasta = hasta;
         }
-        // Reutilizamos los mismos tokens que ya fueron codificados por Parser en ejecutarParser()
-        Semantico sem = new Semantico(ultimaLista);
-        boolean ok = sem.analizar();
-
-        if (ok) {
-            areaErrores.setForeground(new Color(0, 128, 0));
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText("Análisis semántico correcto.\n");
-            JOptionPane.showMessageDialog(this,
-                    "El análisis semántico se completó sin errores.",
-                    "Semántico", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            areaErrores.setForeground(Color.RED);
-            areaErrores.setFont(new Font("Consolas", Font.BOLD, 22));
-            areaErrores.setText("SEMANTIC ERROR\n\n" + sem.getErrores());
-            JOptionPane.showMessageDialog(this,
-                    "Se encontraron errores semánticos.",
-                    "Semántico", JOptionPane.ERROR_MESSAGE);
+
+        @Override
+        protected Resultado doInBackground() {
+            Resultado r = new Resultado();
+            r.tokens = sesion.getTokens(r.metricas);
+            for (Diagnostico d : sesion.getErroresLexicos()) {
+                r.erroresLexicos++;
+                r.errores.append(d.mensaje).append('\n');
+            }
+            if (r.erroresLexicos > 0 || hasta == Metricas.Fase.LEXICO || isCancelled()) return r;
+
+            Parser.Resultado sintactico = sesion.getSintactico(r.metricas);
+            r.sintacticoOk = sintactico.esCorrecto();
+            if (!r.sintacticoOk) {
+                r.errores.append(sintactico.getErrores());
+                return r;
+            }
+            if (hasta == Metricas.Fase.SINTACTICO || isCancelled()) return r;
+
+            Semantico.Resultado sem = sesion.getSemantico(r.metricas);
+            if (isCancelled()) return r;
+            r.semanticoOk = sem.esCorrecto();
+            r.errores.append(sem.getErrores());
+            if (r.semanticoOk) {
+                // Ciclos infinitos o costosos y problemas de flujo de datos: se avisan sin impedir la compilación
+                for (InformeCiclo c : AnalizadorCiclos.analizar(r.tokens, sem.getTablaSimbolos())) {
+                    if (c.esProblematico()) r.avisos.append("Aviso: ").append(c).append('\n');
+                }
+                if (isCancelled()) return r;
+                for (Diagnostico d : AnalizadorFlujo.analizar(r.tokens, sem.getTablaSimbolos())) {
+                    r.avisos.append("Aviso: ").append(d.mensaje).append('\n');
+                }
+            }
+            return r;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || this != analisisActual) return;
+            analisisActual = null;
+            try {
+                mostrar(get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                mostrarErrores("Error interno del compilador:\n" + e.getCause());
+                estado.setText(" ");
+            }
         }
     }
 
@@ -268,11 +309,9 @@ public class Interface extends JFrame {
             Component c = super.getTableCellRendererComponent(
                     table, value, isSelected, hasFocus, row, column);
 
-            Object tipo = table.getModel().getValueAt(row, 0);
-            boolean esInvalido = (tipo instanceof Token.TokenTipo)
-                    && ((Token.TokenTipo) tipo) == Token.TokenTipo.Invalido;
-            boolean esEOF = (tipo instanceof Token.TokenTipo)
-                    && ((Token.TokenTipo) tipo) == Token.TokenTipo.EOF;
+            // El color sale del tipo del token, sin pedirle la celda al modelo
+            Token.TokenTipo tipo = ((ModeloTablaTokens) table.getModel()).getTipo(table.convertRowIndexToModel(row));
+            boolean esInvalido = tipo == Token.TokenTipo.Invalido;
 
             if (!isSelected) {
                 if (esInvalido){
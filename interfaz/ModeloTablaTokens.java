@@ -0,0 +1,38 @@
+package interfaz;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import data.Token;
+
+/** Modelo de la tabla de tokens que lee las filas directamente de la lista del Scanner.
+ * No copia los tokens a filas Object[] y notifica un solo cambio por análisis. */
+class ModeloTablaTokens extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNAS = {"Tipo", "Token"};
+
+    private List<Token> tokens = Collections.emptyList();
+
+    /** Reemplaza todos los tokens (una sola notificación a la tabla). */
+    void setTokens(List<Token> tokens) {
+        this.tokens = (tokens != null) ? tokens : Collections.emptyList();
+        fireTableDataChanged();
+    }
+
+    /** Tipo del token en la fila indicada del modelo, sin pasar por getValueAt. */
+    Token.TokenTipo getTipo(int fila) { return tokens.get(fila).tipo; }
+
+    @Override public int getRowCount()                 { return tokens.size(); }
+    @Override public int getColumnCount()              { return COLUMNAS.length; }
+    @Override public String getColumnName(int columna) { return COLUMNAS[columna]; }
+    @Override public boolean isCellEditable(int r, int c) { return false; }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Token tk = tokens.get(fila);
+        return (columna == 0) ? tk.tipo : tk.valor;
+    }
+}
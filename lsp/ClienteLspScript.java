@@ -0,0 +1,142 @@
+package lsp;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/** Cliente LSP guionado para probar ServidorLsp sin editor ni red.
+ * El servidor corre en el mismo proceso, conectado por tuberías.
+ *
+ * Cada línea del guion es un mensaje JSON-RPC, o una de estas directivas:
+ *   # comentario
+ *   @abrir uri archivo     envía didOpen con el contenido del archivo
+ *
+ * Después de cada petición (con "id") se espera su respuesta, y después de cada
+ * didOpen/didChange se esperan los diagnósticos; se imprime todo lo recibido con la latencia.
+ *
+ * Uso: java lsp.ClienteLspScript guion.txt
+ */
+public class ClienteLspScript {
+
+    private static final long ESPERA_MAXIMA_MS = 10_000;
+
+    private final PipedOutputStream haciaServidor = new PipedOutputStream();
+    private final BlockingQueue<String> recibidos = new LinkedBlockingQueue<>();
+    private int version = 1;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Uso: java lsp.ClienteLspScript guion.txt");
+            System.exit(2);
+        }
+        new ClienteLspScript().ejecutar(Paths.get(args[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    void ejecutar(Path guion) throws Exception {
+        PipedInputStream entradaServidor = new PipedInputStream(haciaServidor, 1 << 20);
+        PipedInputStream desdeServidor = new PipedInputStream(1 << 20);
+        PipedOutputStream salidaServidor = new PipedOutputStream(desdeServidor);
+        ServidorLsp servidor = new ServidorLsp(entradaServidor, salidaServidor);
+
+        Thread hiloServidor = new Thread(() -> {
+            try {
+                servidor.ejecutar();
+                salidaServidor.close();
+            } catch (IOException e) {
+                System.err.println("Servidor: " + e);
+            }
+        }, "servidor-lsp");
+        hiloServidor.start();
+
+        Thread lector = new Thread(() -> {
+            try {
+                String m;
+                while ((m = ServidorLsp.leerMensaje(desdeServidor)) != null) recibidos.add(m);
+            } catch (IOException e) {
+                // el servidor terminó
+            }
+        }, "lector-lsp");
+        lector.setDaemon(true);
+        lector.start();
+
+        for (String linea : Files.readAllLines(guion, StandardCharsets.UTF_8)) {
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) continue;
+
+            String json = linea;
+            if (linea.startsWith("@abrir ")) {
+                String[] partes = linea.split("\\s+", 3);
+                String texto = new String(Files.readAllBytes(Paths.get(partes[2])), StandardCharsets.UTF_8);
+                json = Json.escribir(Json.obj("jsonrpc", "2.0", "method", "textDocument/didOpen", "params",
+                        Json.obj("textDocument", Json.obj("uri", partes[1], "languageId", "microjava",
+                                "version", version++, "text", texto))));
+            }
+
+            Map<String, Object> msg = (Map<String, Object>) Json.leer(json);
+            String metodo = (String) msg.get("method");
+            System.out.println("-> " + metodo + (linea.startsWith("@") ? " " + linea : ""));
+            long t0 = System.nanoTime();
+            ServidorLsp.escribirMensaje(haciaServidor, json);
+
+            if (msg.get("id") != null) {
+                esperar(m -> msg.get("id").equals(m.get("id")), t0);
+            } else if ("textDocument/didOpen".equals(metodo) || "textDocument/didChange".equals(metodo)) {
+                esperar(m -> "textDocument/publishDiagnostics".equals(m.get("method")), t0);
+            }
+        }
+        haciaServidor.close();
+        hiloServidor.join(ESPERA_MAXIMA_MS);
+        String m;
+        while ((m = recibidos.poll()) != null) System.out.println("<- " + m);
+    }
+
+    private interface Condicion {
+        boolean cumple(Map<String, Object> mensaje);
+    }
+
+    /** Imprime lo recibido hasta encontrar el mensaje esperado. */
+    @SuppressWarnings("unchecked")
+    private void esperar(Condicion condicion, long t0) throws InterruptedException {
+        while (true) {
+            String m = recibidos.poll(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+            if (m == null) {
+                System.out.println("   (sin respuesta)");
+                return;
+            }
+            long nanos = System.nanoTime() - t0;
+            Map<String, Object> msg = (Map<String, Object>) Json.leer(m);
+            System.out.println("<- " + resumir(msg, m));
+            if (condicion.cumple(msg)) {
+                System.out.printf("   %.3f ms%n", nanos / 1_000_000.0);
+                return;
+            }
+        }
+    }
+
+    // Los diagnósticos se imprimen uno por línea; el resto tal cual
+    @SuppressWarnings("unchecked")
+    private static String resumir(Map<String, Object> msg, String crudo) {
+        if (!"textDocument/publishDiagnostics".equals(msg.get("method"))) return crudo;
+        Map<String, Object> params = (Map<String, Object>) msg.get("params");
+        List<Object> diags = (List<Object>) params.get("diagnostics");
+        StringBuilder sb = new StringBuilder("publishDiagnostics " + params.get("uri") + " ("
+                + diags.size() + ")");
+        for (Object o : diags) {
+            Map<String, Object> d = (Map<String, Object>) o;
+            Map<String, Object> ini = (Map<String, Object>) ((Map<String, Object>) d.get("range")).get("start");
+            sb.append("\n     ").append(ini.get("line")).append(':').append(ini.get("character"))
+              .append("  ").append(d.get("message"));
+        }
+        return sb.toString();
+    }
+}
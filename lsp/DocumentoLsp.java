@@ -0,0 +1,248 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import data.Diagnostico;
+import data.Metricas;
+import data.Parser;
+import data.Scanner;
+import data.SemanticoIncremental;
+import data.Token;
+
+/** Estado en memoria de un documento abierto: texto, tokens con su posición, inicios de línea
+ * y los diagnósticos del último análisis.
+ *
+ * Las ediciones se aplican de forma incremental: solo se vuelve a tokenizar desde el token
+ * que toca la edición hasta el primer token del texto sin cambios que vuelve a coincidir
+ * con uno anterior; los tokens siguientes se reutilizan y solo se desplaza su posición.
+ * Si la secuencia de tokens no cambió (espacios, saltos de línea) no se ejecutan Parser ni
+ * Semantico, porque los diagnósticos se ubican por índice de token y siguen siendo válidos.
+ * Si cambiaron, el análisis semántico solo revisa las sentencias del rango de tokens editado
+ * desde el último análisis con sintaxis correcta (SemanticoIncremental).
+ */
+class DocumentoLsp {
+
+    final String uri;
+    int version;
+
+    private String texto;
+    private final ArrayList<Token> tokens = new ArrayList<>();
+    private int[] posiciones = new int[0];
+    private int[] iniciosLinea;
+    private List<Diagnostico> diagnosticos = Collections.emptyList();
+    private boolean tokensCambiaron;
+
+    private final SemanticoIncremental semantico = new SemanticoIncremental();
+    // Tokens que cambiaron desde el último análisis semántico: [cambioIni, cambioFin) en índices
+    // actuales y cuántos tokens más que entonces hay (cambioIni = -1: hay que analizar todo)
+    private int cambioIni = -1, cambioFin, cambioDelta;
+    private boolean hayCambio;
+
+    DocumentoLsp(String uri, int version, String texto) {
+        this.uri = uri;
+        this.version = version;
+        reemplazarTodo(texto);
+    }
+
+    // ===========================
+    // Ediciones
+    // ===========================
+
+    void reemplazarTodo(String nuevo) {
+        texto = nuevo;
+        Scanner sc = new Scanner(nuevo);
+        tokens.clear();
+        tokens.addAll(sc.getTokens());
+        posiciones = sc.getPosiciones();
+        iniciosLinea = calcularIniciosLinea(nuevo);
+        tokensCambiaron = true;
+        cambioIni = -1;
+        hayCambio = true;
+    }
+
+    /** Reemplaza el rango [inicio, fin) (en líneas y caracteres UTF-16, como en LSP) por 'nuevo'. */
+    void aplicarCambio(int lineaIni, int carIni, int lineaFin, int carFin, String nuevo) {
+        int s = desplazamiento(lineaIni, carIni);
+        int e = Math.max(s, desplazamiento(lineaFin, carFin));
+        int delta = nuevo.length() - (e - s);
+
+        texto = new StringBuilder(texto.length() + delta)
+                .append(texto, 0, s).append(nuevo).append(texto, e, texto.length()).toString();
+        actualizarLineas(s, e, nuevo, delta);
+        retokenizar(s, e, s + nuevo.length(), delta);
+    }
+
+    private void retokenizar(int s, int e, int finInsertado, int delta) {
+        int n = tokens.size();
+
+        // Primer token que termina en s o después (si termina justo en s puede unirse con lo insertado)
+        int k = ultimoTokenAntesDe(s);
+        int i = (k >= 0 && fin(k) >= s) ? k : k + 1;
+        int desde = (i < n) ? Math.min(posiciones[i], s) : s;
+
+        List<Token> nuevos = new ArrayList<>();
+        List<Integer> nuevasPos = new ArrayList<>();
+        int[] sincronia = { n };
+        int[] j = { i };
+        Scanner.analizar(texto, desde, (t, p) -> {
+            if (p >= finInsertado) {
+                // En el texto sin cambios: si un token anterior empezaba aquí, el resto es idéntico
+                while (j[0] < n && (posiciones[j[0]] < e || posiciones[j[0]] + delta < p)) j[0]++;
+                if (j[0] < n && posiciones[j[0]] + delta == p) {
+                    sincronia[0] = j[0];
+                    return false;
+                }
+            }
+            nuevos.add(t);
+            nuevasPos.add(p);
+            return true;
+        });
+        int fin = sincronia[0];
+
+        // ¿Cambió la secuencia de tokens o solo su posición?
+        boolean iguales = (fin - i) == nuevos.size();
+        for (int x = 0; iguales && x < nuevos.size(); x++) {
+            Token a = tokens.get(i + x), b = nuevos.get(x);
+            iguales = a.tipo == b.tipo && a.valor.equals(b.valor);
+        }
+        tokensCambiaron |= !iguales;
+
+        // Reemplazar tokens[i, fin) por los nuevos y desplazar las posiciones del resto
+        int nuevoTam = n - (fin - i) + nuevos.size();
+        int[] pos = (nuevoTam <= posiciones.length) ? posiciones : Arrays.copyOf(posiciones, nuevoTam + nuevoTam / 2);
+        System.arraycopy(posiciones, fin, pos, i + nuevos.size(), n - fin);
+        for (int x = i + nuevos.size(); x < nuevoTam; x++) pos[x] += delta;
+        for (int x = 0; x < nuevos.size(); x++) pos[i + x] = nuevasPos.get(x);
+        posiciones = pos;
+
+        if (iguales) {
+            // Mismos tokens: se conservan los objetos de la lista
+            return;
+        }
+        tokens.subList(i, fin).clear();
+        tokens.addAll(i, nuevos);
+        registrarCambio(i, fin, nuevos.size());
+    }
+
+    /** Une el rango de tokens pendiente de analizar con [i, f), que se reemplazó por 'm' tokens. */
+    private void registrarCambio(int i, int f, int m) {
+        int d = m - (f - i);
+        if (!hayCambio) {
+            hayCambio = true;
+            cambioIni = i;
+            cambioFin = i + m;
+            cambioDelta = d;
+        } else if (cambioIni >= 0) {
+            cambioFin = (cambioFin <= i) ? i + m : Math.max(cambioFin, f) + d;
+            cambioIni = Math.min(cambioIni, i);
+            cambioDelta += d;
+        }
+    }
+
+    private int fin(int indiceToken) {
+        return posiciones[indiceToken] + tokens.get(indiceToken).valor.length();
+    }
+
+    /** Índice del último token que empieza antes de 'offset' (-1 si no hay). */
+    private int ultimoTokenAntesDe(int offset) {
+        int lo = 0, hi = tokens.size() - 1, r = -1;
+        while (lo <= hi) {
+            int m = (lo + hi) >>> 1;
+            if (posiciones[m] < offset) { r = m; lo = m + 1; } else hi = m - 1;
+        }
+        return r;
+    }
+
+    // ===========================
+    // Análisis
+    // ===========================
+
+    /** Ejecuta las fases necesarias y devuelve los diagnósticos actuales. */
+    List<Diagnostico> analizar() {
+        if (!tokensCambiaron) return diagnosticos;
+        tokensCambiaron = false;
+
+        List<Diagnostico> lista = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token t = tokens.get(i);
+            if (t.tipo == Token.TokenTipo.Invalido) {
+                lista.add(new Diagnostico(Metricas.Fase.LEXICO, "Error léxico: token inválido -> " + t.valor, i));
+            }
+        }
+        if (lista.isEmpty()) {
+            Parser.Resultado sintactico = hayCambio
+                    ? semantico.analizar(tokens, cambioIni, cambioFin, cambioDelta)
+                    : semantico.analizar(tokens);
+            if (!sintactico.esCorrecto()) {
+                lista.add(sintactico.getDiagnostico());
+            } else {
+                lista.addAll(semantico.getResultado().getDiagnosticos());
+                hayCambio = false;
+            }
+        }
+        diagnosticos = lista;
+        return lista;
+    }
+
+    // ===========================
+    // Posiciones
+    // ===========================
+
+    String getTexto()            { return texto; }
+    List<Token> getTokens()      { return Collections.unmodifiableList(tokens); }
+    int getPosicion(int i)       { return posiciones[i]; }
+
+    /** Rango [inicio, fin) en el texto del token i (vacío al final si i es -1). */
+    int inicioToken(int i) { return (i >= 0 && i < tokens.size()) ? posiciones[i] : texto.length(); }
+    int finToken(int i)    { return (i >= 0 && i < tokens.size()) ? fin(i) : texto.length(); }
+
+    int desplazamiento(int linea, int caracter) {
+        if (linea >= iniciosLinea.length) return texto.length();
+        int inicio = iniciosLinea[linea];
+        int finLinea = (linea + 1 < iniciosLinea.length) ? iniciosLinea[linea + 1] - 1 : texto.length();
+        return Math.min(inicio + Math.max(0, caracter), Math.max(inicio, finLinea));
+    }
+
+    int linea(int offset) {
+        int lo = 0, hi = iniciosLinea.length - 1;
+        while (lo < hi) {
+            int m = (lo + hi + 1) >>> 1;
+            if (iniciosLinea[m] <= offset) lo = m; else hi = m - 1;
+        }
+        return lo;
+    }
+
+    int caracter(int offset) { return offset - iniciosLinea[linea(offset)]; }
+
+    private static int[] calcularIniciosLinea(String t) {
+        int[] r = new int[16];
+        int n = 1;
+        for (int i = 0; i < t.length(); i++) {
+            if (t.charAt(i) == '\n') {
+                if (n == r.length) r = Arrays.copyOf(r, n * 2);
+                r[n++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    /** Conserva las líneas antes de la edición, agrega las del texto insertado y desplaza las siguientes. */
+    private void actualizarLineas(int s, int e, String nuevo, int delta) {
+        int a = linea(s) + 1;                       // primera línea que empieza después de s
+        int b = a;
+        while (b < iniciosLinea.length && iniciosLinea[b] <= e) b++;
+
+        int insertadas = 0;
+        for (int i = 0; i < nuevo.length(); i++) if (nuevo.charAt(i) == '\n') insertadas++;
+
+        int[] r = new int[a + insertadas + (iniciosLinea.length - b)];
+        System.arraycopy(iniciosLinea, 0, r, 0, a);
+        int x = a;
+        for (int i = 0; i < nuevo.length(); i++) if (nuevo.charAt(i) == '\n') r[x++] = s + i + 1;
+        for (int i = b; i < iniciosLinea.length; i++) r[x++] = iniciosLinea[i] + delta;
+        iniciosLinea = r;
+    }
+}
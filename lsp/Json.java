@@ -0,0 +1,208 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Lector y escritor JSON mínimo para los mensajes del protocolo LSP.
+ * Objetos -> Map, arreglos -> List, números -> Long o Double, y String, Boolean o null. */
+final class Json {
+
+    private final String texto;
+    private int pos;
+
+    private Json(String texto) { this.texto = texto; }
+
+    static Object leer(String texto) {
+        Json j = new Json(texto);
+        Object v = j.valor();
+        j.espacios();
+        if (j.pos != texto.length()) throw j.error("Contenido extra después del valor");
+        return v;
+    }
+
+    // ===========================
+    // Lectura
+    // ===========================
+
+    private Object valor() {
+        espacios();
+        if (pos >= texto.length()) throw error("Fin inesperado");
+        char c = texto.charAt(pos);
+        switch (c) {
+            case '{': return objeto();
+            case '[': return arreglo();
+            case '"': return cadena();
+            case 't': literal("true");  return Boolean.TRUE;
+            case 'f': literal("false"); return Boolean.FALSE;
+            case 'n': literal("null");  return null;
+            default:  return numero();
+        }
+    }
+
+    private Map<String, Object> objeto() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        pos++;
+        espacios();
+        if (texto.charAt(pos) == '}') { pos++; return m; }
+        while (true) {
+            espacios();
+            String clave = cadena();
+            espacios();
+            esperar(':');
+            m.put(clave, valor());
+            espacios();
+            if (texto.charAt(pos) == ',') { pos++; continue; }
+            esperar('}');
+            return m;
+        }
+    }
+
+    private List<Object> arreglo() {
+        List<Object> l = new ArrayList<>();
+        pos++;
+        espacios();
+        if (texto.charAt(pos) == ']') { pos++; return l; }
+        while (true) {
+            l.add(valor());
+            espacios();
+            if (texto.charAt(pos) == ',') { pos++; continue; }
+            esperar(']');
+            return l;
+        }
+    }
+
+    private String cadena() {
+        esperar('"');
+        StringBuilder sb = null;
+        int inicio = pos;
+        while (true) {
+            char c = texto.charAt(pos);
+            if (c == '"') {
+                String s = (sb == null) ? texto.substring(inicio, pos) : sb.append(texto, inicio, pos).toString();
+                pos++;
+                return s;
+            }
+            if (c != '\\') { pos++; continue; }
+
+            if (sb == null) sb = new StringBuilder();
+            sb.append(texto, inicio, pos);
+            char e = texto.charAt(pos + 1);
+            pos += 2;
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default: sb.append(e); break;   // \" \\ \/
+            }
+            inicio = pos;
+        }
+    }
+
+    private Object numero() {
+        int inicio = pos;
+        boolean decimal = false;
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') decimal = true;
+            else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) break;
+            pos++;
+        }
+        if (inicio == pos) throw error("Valor inválido");
+        String n = texto.substring(inicio, pos);
+        return decimal ? (Object) Double.parseDouble(n) : (Object) Long.parseLong(n);
+    }
+
+    private void literal(String palabra) {
+        if (!texto.startsWith(palabra, pos)) throw error("Se esperaba " + palabra);
+        pos += palabra.length();
+    }
+
+    private void esperar(char c) {
+        if (pos >= texto.length() || texto.charAt(pos) != c) throw error("Se esperaba '" + c + "'");
+        pos++;
+    }
+
+    private void espacios() {
+        while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException("JSON inválido en la posición " + pos + ": " + msg);
+    }
+
+    // ===========================
+    // Escritura
+    // ===========================
+
+    static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escribir(valor, sb);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static void escribir(Object valor, StringBuilder sb) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String) {
+            escribirCadena((String) valor, sb);
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof Map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) valor).entrySet()) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribirCadena(e.getKey(), sb);
+                sb.append(':');
+                escribir(e.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valor instanceof List) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object o : (List<Object>) valor) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribir(o, sb);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Tipo no soportado en JSON: " + valor.getClass());
+        }
+    }
+
+    static void escribirCadena(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /** Atajo para armar objetos: obj("a", 1, "b", 2). */
+    static Map<String, Object> obj(Object... claveValor) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < claveValor.length; i += 2) m.put((String) claveValor[i], claveValor[i + 1]);
+        return m;
+    }
+}
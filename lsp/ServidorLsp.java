@@ -0,0 +1,240 @@
+package lsp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import data.Compilador;
+import data.Diagnostico;
+
+/** Servidor Language Server Protocol por stdin/stdout.
+ *
+ * Mantiene en memoria cada documento abierto (DocumentoLsp), acepta cambios incrementales
+ * (textDocumentSync = 2) y después de cada didOpen/didChange publica los diagnósticos del
+ * Léxico, el Parser o el Semántico con su rango en el texto.
+ *
+ * Uso: java lsp.ServidorLsp
+ */
+public class ServidorLsp {
+
+    private final InputStream entrada;
+    private final OutputStream salida;
+    private final Map<String, DocumentoLsp> documentos = new HashMap<>();
+    private long nanosUltimoAnalisis;
+
+    public ServidorLsp(InputStream entrada, OutputStream salida) {
+        this.entrada = new BufferedInputStream(entrada);
+        this.salida = new BufferedOutputStream(salida);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ServidorLsp(System.in, System.out).ejecutar();
+    }
+
+    /** Atiende mensajes hasta recibir 'exit' o hasta que se cierre la entrada. */
+    public void ejecutar() throws IOException {
+        String mensaje;
+        while ((mensaje = leerMensaje()) != null) {
+            if (!atender(mensaje)) return;
+        }
+    }
+
+    /** Duración del último análisis (ediciones + fases), en nanosegundos. */
+    public long getNanosUltimoAnalisis() { return nanosUltimoAnalisis; }
+
+    // ===========================
+    // Despacho de mensajes
+    // ===========================
+
+    @SuppressWarnings("unchecked")
+    private boolean atender(String texto) throws IOException {
+        Map<String, Object> msg;
+        try {
+            msg = (Map<String, Object>) Json.leer(texto);
+        } catch (RuntimeException e) {
+            responderError(null, -32700, "Mensaje inválido: " + e.getMessage());
+            return true;
+        }
+        Object id = msg.get("id");
+        try {
+            return despachar(id, msg);
+        } catch (ClassCastException | NullPointerException | IndexOutOfBoundsException e) {
+            // JSON bien formado pero sin la forma esperada (faltan campos, tipos equivocados, rango fuera del texto)
+            fallo(id, -32602, "Parámetros inválidos", e);
+        } catch (RuntimeException e) {
+            fallo(id, -32603, "Error interno", e);
+        }
+        return true;
+    }
+
+    /** Un mensaje que no se pudo atender no detiene al servidor: si es una petición se responde
+     * con el error, y si es una notificación solo se reporta en stderr. */
+    private void fallo(Object id, int codigo, String mensaje, RuntimeException e) throws IOException {
+        if (id != null) responderError(id, codigo, mensaje + ": " + e);
+        else System.err.println("ServidorLsp: " + mensaje.toLowerCase() + " en una notificación: " + e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean despachar(Object id, Map<String, Object> msg) throws IOException {
+        String metodo = (String) msg.get("method");
+        Map<String, Object> params = (Map<String, Object>) msg.get("params");
+        if (metodo == null) return true;   // respuesta del cliente: no se espera ninguna
+
+        switch (metodo) {
+            case "initialize":
+                responder(id, Json.obj(
+                        "capabilities", Json.obj(
+                                "textDocumentSync", Json.obj("openClose", true, "change", 2)),
+                        "serverInfo", Json.obj("name", "microjava-lsp", "version", Compilador.VERSION)));
+                break;
+            case "shutdown":
+                documentos.clear();
+                responder(id, null);
+                break;
+            case "exit":
+                return false;
+            case "textDocument/didOpen":
+                abrir((Map<String, Object>) params.get("textDocument"));
+                break;
+            case "textDocument/didChange":
+                cambiar((Map<String, Object>) params.get("textDocument"),
+                        (List<Object>) params.get("contentChanges"));
+                break;
+            case "textDocument/didClose": {
+                String uri = (String) ((Map<String, Object>) params.get("textDocument")).get("uri");
+                documentos.remove(uri);
+                publicar(uri, null, new ArrayList<>());
+                break;
+            }
+            default:
+                // Las notificaciones desconocidas (initialized, $/...) se ignoran
+                if (id != null) responderError(id, -32601, "Método no soportado: " + metodo);
+                break;
+        }
+        return true;
+    }
+
+    private void abrir(Map<String, Object> td) throws IOException {
+        long t0 = System.nanoTime();
+        String uri = (String) td.get("uri");
+        DocumentoLsp doc = new DocumentoLsp(uri, entero(td.get("version")), (String) td.get("text"));
+        documentos.put(uri, doc);
+        List<Diagnostico> diags = doc.analizar();
+        nanosUltimoAnalisis = System.nanoTime() - t0;
+        publicar(uri, doc, diags);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cambiar(Map<String, Object> td, List<Object> cambios) throws IOException {
+        long t0 = System.nanoTime();
+        String uri = (String) td.get("uri");
+        DocumentoLsp doc = documentos.get(uri);
+        if (doc == null) return;
+        doc.version = entero(td.get("version"));
+
+        for (Object o : cambios) {
+            Map<String, Object> c = (Map<String, Object>) o;
+            String nuevo = (String) c.get("text");
+            Map<String, Object> rango = (Map<String, Object>) c.get("range");
+            if (rango == null) {
+                doc.reemplazarTodo(nuevo);
+            } else {
+                Map<String, Object> ini = (Map<String, Object>) rango.get("start");
+                Map<String, Object> fin = (Map<String, Object>) rango.get("end");
+                doc.aplicarCambio(entero(ini.get("line")), entero(ini.get("character")),
+                        entero(fin.get("line")), entero(fin.get("character")), nuevo);
+            }
+        }
+        List<Diagnostico> diags = doc.analizar();
+        nanosUltimoAnalisis = System.nanoTime() - t0;
+        publicar(uri, doc, diags);
+    }
+
+    private void publicar(String uri, DocumentoLsp doc, List<Diagnostico> diags) throws IOException {
+        List<Object> lista = new ArrayList<>(diags.size());
+        for (Diagnostico d : diags) {
+            int ini = doc.inicioToken(d.indiceToken);
+            int fin = doc.finToken(d.indiceToken);
+            lista.add(Json.obj(
+                    "range", Json.obj("start", posicion(doc, ini), "end", posicion(doc, fin)),
+                    "severity", 1,
+                    "source", "microjava",
+                    "message", d.mensaje));
+        }
+        Map<String, Object> params = Json.obj("uri", uri);
+        if (doc != null) params.put("version", doc.version);
+        params.put("diagnostics", lista);
+        enviar(Json.obj("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics", "params", params));
+    }
+
+    private static Map<String, Object> posicion(DocumentoLsp doc, int offset) {
+        return Json.obj("line", doc.linea(offset), "character", doc.caracter(offset));
+    }
+
+    private static int entero(Object o) {
+        return (o instanceof Number) ? ((Number) o).intValue() : 0;
+    }
+
+    // ===========================
+    // Transporte (Content-Length + JSON en UTF-8)
+    // ===========================
+
+    private void responder(Object id, Object resultado) throws IOException {
+        Map<String, Object> r = Json.obj("jsonrpc", "2.0", "id", id);
+        r.put("result", resultado);
+        enviar(r);
+    }
+
+    private void responderError(Object id, int codigo, String mensaje) throws IOException {
+        enviar(Json.obj("jsonrpc", "2.0", "id", id, "error", Json.obj("code", codigo, "message", mensaje)));
+    }
+
+    private void enviar(Map<String, Object> msg) throws IOException {
+        escribirMensaje(salida, Json.escribir(msg));
+    }
+
+    static void escribirMensaje(OutputStream out, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + cuerpo.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(cuerpo);
+        out.flush();
+    }
+
+    private String leerMensaje() throws IOException {
+        return leerMensaje(entrada);
+    }
+
+    /** Lee un mensaje completo; devuelve null si la entrada se cerró. */
+    static String leerMensaje(InputStream in) throws IOException {
+        int longitud = -1;
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        while (true) {
+            int b = in.read();
+            if (b < 0) return null;
+            if (b == '\n') {
+                String cabecera = linea.toString(StandardCharsets.US_ASCII).trim();
+                linea.reset();
+                if (cabecera.isEmpty()) {
+                    if (longitud >= 0) break;
+                    continue;
+                }
+                if (cabecera.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    longitud = Integer.parseInt(cabecera.substring(15).trim());
+                }
+            } else {
+                linea.write(b);
+            }
+        }
+        byte[] cuerpo = in.readNBytes(longitud);
+        if (cuerpo.length < longitud) return null;
+        return new String(cuerpo, StandardCharsets.UTF_8);
+    }
+}